@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+import javax.enterprise.context.Dependent;
+import javax.enterprise.inject.Produces;
+import javax.enterprise.inject.spi.InjectionPoint;
+
+/**
+ * Produces the configuration values marked with {@link ConfigurationValue}
+ * from the system properties of the server.
+ *
+ * @author fkre
+ */
+@Dependent
+public class ConfigurationFactory {
+    
+    // --------------- Private static constants ---------------
+    
+    /**
+     * Defines the prefix of all system properties used for configuration.
+     */
+    private static final String PROPERTY_PREFIX = "webvert.";
+    
+    // --------------- Public methods ---------------
+    
+    /**
+     * Creates a configuration value as text via injection through the CDI 
+     * manager.
+     * 
+     * @param   injectionPoint      the point of the injection.
+     * @return  the configured value.
+     */
+    @Produces
+    @ConfigurationValue
+    public String createString(InjectionPoint injectionPoint) {
+        ConfigurationValue configuration = injectionPoint.getAnnotated()
+                .getAnnotation(ConfigurationValue.class);
+        
+        return System.getProperty(
+                ConfigurationFactory.PROPERTY_PREFIX + configuration.name(), 
+                configuration.defaultValue());
+    }
+    
+    
+    /**
+     * Creates a configuration value as integer via injection through the CDI 
+     * manager.
+     * 
+     * @param   injectionPoint      the point of the injection.
+     * @return  the configured value.
+     */
+    @Produces
+    @ConfigurationValue
+    public int createInteger(InjectionPoint injectionPoint) {
+        return Integer.parseInt(this.createString(injectionPoint));
+    }
+    
+    
+    /**
+     * Creates a configuration value as long via injection through the CDI 
+     * manager.
+     * 
+     * @param   injectionPoint      the point of the injection.
+     * @return  the configured value.
+     */
+    @Produces
+    @ConfigurationValue
+    public long createLong(InjectionPoint injectionPoint) {
+        return Long.parseLong(this.createString(injectionPoint));
+    }
+    
+    
+    /**
+     * Creates a configuration value as double via injection through the CDI 
+     * manager.
+     * 
+     * @param   injectionPoint      the point of the injection.
+     * @return  the configured value.
+     */
+    @Produces
+    @ConfigurationValue
+    public double createDouble(InjectionPoint injectionPoint) {
+        return Double.parseDouble(this.createString(injectionPoint));
+    }
+    
+    
+    /**
+     * Creates a configuration value as boolean via injection through the CDI 
+     * manager.
+     * 
+     * @param   injectionPoint      the point of the injection.
+     * @return  the configured value.
+     */
+    @Produces
+    @ConfigurationValue
+    public boolean createBoolean(InjectionPoint injectionPoint) {
+        return Boolean.parseBoolean(this.createString(injectionPoint));
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import javax.enterprise.util.Nonbinding;
+import javax.inject.Qualifier;
+
+/**
+ * Marks an injection point that receives a configuration value, which can be
+ * overridden using the system property {@code webvert.<name>}.
+ *
+ * @author fkre
+ */
+@Qualifier	
+@Retention(RetentionPolicy.RUNTIME)	
+@Target({ElementType.METHOD, ElementType.FIELD, 
+        ElementType.PARAMETER, ElementType.TYPE})	
+public @interface ConfigurationValue {
+    
+    /**
+     * Defines the name of the configuration value.
+     * 
+     * @return  the name of the value.
+     */
+    @Nonbinding
+    String name() default "";
+    
+    /**
+     * Defines the value used if the configuration value has not been set.
+     * 
+     * @return  the default value.
+     */
+    @Nonbinding
+    String defaultValue() default "";
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.billing;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.BillCreated;
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+import de.oth.fkretschmar.advertisementproject.business.events.EntityEvent;
+import de.oth.fkretschmar.advertisementproject.business.repositories.BillingRunRepository;
+import de.oth.fkretschmar.advertisementproject.business.repositories.CampaignRepository;
+import de.oth.fkretschmar.advertisementproject.business.repositories.ContentRepository;
+import de.oth.fkretschmar.advertisementproject.business.repositories.ImpressionRollupRepository;
+import de.oth.fkretschmar.advertisementproject.business.repositories.PaymentOutboxRepository;
+import de.oth.fkretschmar.advertisementproject.business.services.base.IBillService;
+import de.oth.fkretschmar.advertisementproject.business.services.base.ICampaignService;
+import de.oth.fkretschmar.advertisementproject.entities.billing.Bill;
+import de.oth.fkretschmar.advertisementproject.entities.billing.BillItem;
+import de.oth.fkretschmar.advertisementproject.entities.billing.BillingRun;
+import de.oth.fkretschmar.advertisementproject.entities.billing.ContentRequestCount;
+import de.oth.fkretschmar.advertisementproject.entities.billing.ImpressionRollup;
+import de.oth.fkretschmar.advertisementproject.entities.billing.PaymentOutboxEntry;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Campaign;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.PaymentInterval;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+/**
+ * Bills the campaigns of a {@link BillingRun} in chunks, where every chunk is
+ * written within a transaction of its own together with the checkpoint of 
+ * the run.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@Dependent
+public class BillingRunWriter {
+
+    // --------------- Private fields ---------------
+    
+    /**
+     * Stores the sender of the bill created event.
+     */
+    @Inject
+    @BillCreated
+    private Event<EntityEvent<Bill>> billCreatedEventSender;
+    
+    /**
+     * Stores the repository used to manage {@link BillingRun} entites.
+     */
+    @Inject
+    private BillingRunRepository billingRunRepository;
+
+    /**
+     * Stores the service used to manage {@link Bill} entites.
+     */
+    @Inject
+    private IBillService billService;
+
+    /**
+     * Stores the repository used to manage {@link Campaign} entites.
+     */
+    @Inject
+    private CampaignRepository campaignRepository;
+
+    /**
+     * Stores the service used to manage {@link Campaign} entites.
+     */
+    @Inject
+    private ICampaignService campaignService;
+
+    /**
+     * Stores the repository used to manage {@link Content} entities.
+     */
+    @Inject
+    private ContentRepository contentRepository;
+
+    /**
+     * Stores the repository used to manage {@link ImpressionRollup} entities.
+     */
+    @Inject
+    private ImpressionRollupRepository impressionRollupRepository;
+
+    /**
+     * Stores the repository used to manage {@link PaymentOutboxEntry} 
+     * entities.
+     */
+    @Inject
+    private PaymentOutboxRepository paymentOutboxRepository;
+
+    /**
+     * Stores the time in milliseconds that the impressions of an hour are
+     * given to be written before the hour is billed.
+     */
+    @Inject
+    @ConfigurationValue(name = "billing.rollupGrace", defaultValue = "60000")
+    private long rollupGrace;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Resumes the unfinished billing run of the specified payment interval or
+     * starts a new one if all previous runs have been finished.
+     *
+     * @param   interval    the interval.
+     * @return  the id of the run.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public long startRun(PaymentInterval interval) {
+        BillingRun run = this.billingRunRepository.findUnfinished(interval);
+        
+        if (run == null) {
+            // only complete hours are billed, so that the rollup of an 
+            // hour never changes after it has been billed
+            run = BillingRun.createBillingRun()
+                    .interval(interval)
+                    .cutoff(LocalDateTime.now()
+                            .minus(this.rollupGrace, ChronoUnit.MILLIS)
+                            .truncatedTo(ChronoUnit.HOURS))
+                    .build();
+            this.billingRunRepository.persist(run);
+        }
+        
+        return run.getId();
+    }
+
+    /**
+     * Bills the next chunk of campaigns of the specified run and advances its
+     * checkpoint. Either the whole chunk and the checkpoint are written or 
+     * none of them, so that no campaign is billed twice. The bills are not 
+     * paid within the transaction, their payments are written to the payment
+     * outbox instead.
+     *
+     * @param   runId       the id of the run.
+     * @param   chunkSize   the maximum number of campaigns that are billed.
+     * @return  {@code true} if a chunk has been billed, {@code false} if the 
+     *          run is finished.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public boolean billNextChunk(long runId, int chunkSize) {
+        BillingRun run = this.billingRunRepository.find(runId);
+        
+        List<Long> campaignIds 
+                = this.impressionRollupRepository.findCampaignsForPaymentInterval(
+                        run.getInterval(), 
+                        run.getCutoff(), 
+                        run.getLastCampaignId(),
+                        chunkSize);
+        
+        if (campaignIds.isEmpty()) {
+            run.setFinished(true);
+            return false;
+        }
+        
+        // let the database sum up the hourly rollups of every content instead
+        // of loading every single request
+        List<ContentRequestCount> counts
+                = this.impressionRollupRepository.countForCampaigns(
+                        campaignIds, run.getCutoff());
+
+        Map<Long, Bill> bills = new TreeMap<Long, Bill>();
+        Map<Long, Campaign> campaigns = new TreeMap<Long, Campaign>();
+
+        for (ContentRequestCount count : counts) {
+            // 1.   the counts are ordered by campaign, so the bill of the
+            //      campaign only has to be created for its first count...
+            Bill bill = bills.get(count.getCampaignId());
+            if (bill == null) {
+                bill = Bill.createBill().build();
+                bills.put(count.getCampaignId(), bill);
+                campaigns.put(
+                        count.getCampaignId(),
+                        this.campaignRepository.find(count.getCampaignId()));
+            }
+
+            // 2.   ... and every count becomes exactly one bill item.
+            bill.addItem(BillItem.createBillItem()
+                    .content(this.contentRepository.find(count.getContentId()))
+                    .contentRequests(count.getRequests())
+                    .build());
+        }
+
+        bills.forEach((campaignId, bill)
+                -> this.billCampaign(campaigns.get(campaignId), bill, run));
+        
+        run.setLastCampaignId(campaignIds.get(campaignIds.size() - 1));
+        run.setBilledCampaigns(run.getBilledCampaigns() + bills.size());
+        
+        return true;
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Creates the specified bill for its campaign, attaches it to the billed
+     * rollups of the run and writes its payment to the outbox.
+     *
+     * @param   campaign    the campaign that is billed.
+     * @param   bill        the bill of the campaign.
+     * @param   run         the run that the campaign is billed in.
+     */
+    private void billCampaign(Campaign campaign, Bill bill, BillingRun run) {
+        // create the bill for its existing campaign...
+        campaign = this.billService.createBillForCampaign(campaign, bill);
+        // ... inform the current user, that the campaign has changed...
+        this.campaignService.changeCampaignForUser(
+                campaign.getComissioner(),
+                campaign);
+        
+        this.billCreatedEventSender.fire(new EntityEvent<Bill>(bill));
+
+        // ... set the bill on the counted rollups with one update so next 
+        // time around the paid requests are not counted again...
+        Collection<Long> contentIds = new ArrayList<Long>();
+        bill.getItems().forEach(
+                billItem -> contentIds.add(billItem.getContent().getId()));
+
+        this.impressionRollupRepository.attachBill(
+                bill, contentIds, run.getCutoff());
+
+        // ... and pay for the bill once the transaction has been committed.
+        this.paymentOutboxRepository.persist(
+                PaymentOutboxEntry.createPaymentOutboxEntry()
+                        .bill(bill)
+                        .build());
+    }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.billing;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The circuit breaker of a single payment provider. After the configured 
+ * number of consecutive failures the circuit opens and every call fails fast.
+ * Once the open duration has passed a single probing call is let through, 
+ * whose outcome either closes the circuit or opens it again.
+ *
+ * The breaker also keeps the latency statistics of the calls that reached the
+ * provider. All methods are thread-safe.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+public class CircuitBreaker {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the number of consecutive failures that open the circuit.
+     */
+    private final int failureThreshold;
+
+    /**
+     * Stores the name of the provider.
+     */
+    private final String name;
+
+    /**
+     * Stores the time in milliseconds that the circuit stays open.
+     */
+    private final long openDuration;
+
+    /**
+     * Stores the number of calls that have reached the provider.
+     */
+    private long calls;
+
+    /**
+     * Stores the number of consecutive failures.
+     */
+    private int consecutiveFailures;
+
+    /**
+     * Stores the number of calls that failed because of the provider.
+     */
+    private long failures;
+
+    /**
+     * Stores the latency of the slowest call in nanoseconds.
+     */
+    private long maxLatency;
+
+    /**
+     * Stores the time in milliseconds at which the circuit has been opened.
+     */
+    private long openedAt;
+
+    /**
+     * Stores whether or not the probing call of a half open circuit is 
+     * running.
+     */
+    private boolean probing;
+
+    /**
+     * Stores the number of calls that were rejected without reaching the 
+     * provider.
+     */
+    private long rejections;
+
+    /**
+     * Stores the state of the circuit.
+     */
+    private CircuitState state = CircuitState.CLOSED;
+
+    /**
+     * Stores the summed up latency of all calls in nanoseconds.
+     */
+    private long totalLatency;
+
+    // --------------- Public constructors ---------------
+
+    /**
+     * Creates a new instance of {@link CircuitBreaker} using the specified
+     * name and thresholds.
+     *
+     * @param   name                the name of the provider.
+     * @param   failureThreshold    the number of consecutive failures that 
+     *                              open the circuit.
+     * @param   openDuration        the time in milliseconds that the circuit
+     *                              stays open.
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openDuration) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Asks the breaker for the permission to call the provider. Every granted
+     * permission has to be followed by exactly one call to 
+     * {@link #recordSuccess(long)}, {@link #recordFailure(long)} or 
+     * {@link #abandon()}.
+     *
+     * @return  {@code true} if the provider may be called, {@code false} if 
+     *          the call has to be deferred.
+     */
+    public synchronized boolean tryAcquire() {
+        if (this.state == CircuitState.OPEN
+                && System.currentTimeMillis() - this.openedAt >= this.openDuration) {
+            this.state = CircuitState.HALF_OPEN;
+        }
+
+        if (this.state == CircuitState.CLOSED) {
+            return true;
+        }
+
+        if (this.state == CircuitState.HALF_OPEN && !this.probing) {
+            this.probing = true;
+            return true;
+        }
+
+        this.rejections++;
+        return false;
+    }
+
+
+    /**
+     * Gives a granted permission back without having called the provider.
+     */
+    public synchronized void abandon() {
+        this.probing = false;
+    }
+
+
+    /**
+     * Records a call that the provider answered, which closes the circuit.
+     *
+     * @param   latency the latency of the call in nanoseconds.
+     */
+    public synchronized void recordSuccess(long latency) {
+        this.recordLatency(latency);
+        this.consecutiveFailures = 0;
+        this.probing = false;
+        this.state = CircuitState.CLOSED;
+    }
+
+
+    /**
+     * Records a call that failed because of the provider, which opens the 
+     * circuit if it was probing or the failure threshold has been reached.
+     *
+     * @param   latency the latency of the call in nanoseconds.
+     */
+    public synchronized void recordFailure(long latency) {
+        this.recordLatency(latency);
+        this.failures++;
+        this.consecutiveFailures++;
+
+        if (this.state == CircuitState.HALF_OPEN
+                || this.consecutiveFailures >= this.failureThreshold) {
+            this.state = CircuitState.OPEN;
+            this.openedAt = System.currentTimeMillis();
+        }
+
+        this.probing = false;
+    }
+
+
+    /**
+     * Gets the time in milliseconds until the next call may be tried.
+     *
+     * @return  the remaining time that the circuit stays open, the open 
+     *          duration while the probing call of a half open circuit is
+     *          running or 0 if the circuit is closed.
+     */
+    public synchronized long remainingOpenTime() {
+        if (this.state == CircuitState.HALF_OPEN) {
+            // the outcome of the probing call is not known yet, and if it 
+            // fails the circuit stays open for the whole duration again
+            return this.openDuration;
+        }
+
+        if (this.state != CircuitState.OPEN) {
+            return 0;
+        }
+
+        return Math.max(
+                0, this.openedAt + this.openDuration - System.currentTimeMillis());
+    }
+
+
+    /**
+     * Gets the current health of the provider.
+     *
+     * @return  the health.
+     */
+    public synchronized ProviderHealth health() {
+        return new ProviderHealth(
+                this.name,
+                this.state,
+                this.calls,
+                this.failures,
+                this.rejections,
+                this.calls > 0 
+                        ? CircuitBreaker.toMillis(this.totalLatency / this.calls)
+                        : 0,
+                CircuitBreaker.toMillis(this.maxLatency));
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Adds the specified latency to the statistics.
+     *
+     * @param   latency the latency of a call in nanoseconds.
+     */
+    private void recordLatency(long latency) {
+        this.calls++;
+        this.totalLatency += latency;
+        this.maxLatency = Math.max(this.maxLatency, latency);
+    }
+
+    // --------------- Private static methods ---------------
+
+    /**
+     * Converts the specified nanoseconds to milliseconds.
+     *
+     * @param   nanos   the nanoseconds.
+     * @return  the milliseconds.
+     */
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
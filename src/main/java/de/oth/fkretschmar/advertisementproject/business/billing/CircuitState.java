@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.billing;
+
+/**
+ * Defines the state of a {@link CircuitBreaker}.
+ * 
+ * @author fkre
+ */
+public enum CircuitState {
+    
+    // --------------- Enum fields ---------------
+    
+    /**
+     * Indicates that calls are passed to the provider.
+     */
+    CLOSED,
+    
+    /**
+     * Indicates that calls fail fast without reaching the provider, because
+     * the provider failed too often.
+     */
+    OPEN,
+    
+    /**
+     * Indicates that a single probing call is passed to the provider to 
+     * decide whether the circuit is closed again.
+     */
+    HALF_OPEN;
+}
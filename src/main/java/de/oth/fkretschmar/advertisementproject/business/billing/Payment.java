@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.billing;
+
+import de.oth.fkretschmar.advertisementproject.entities.billing.Account;
+import de.oth.fkretschmar.advertisementproject.entities.billing.Bill;
+import de.oth.fkretschmar.advertisementproject.entities.billing.PaymentOutboxEntry;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import org.joda.money.Money;
+
+/**
+ * Represents an attempt to transfer the money for a committed {@link Bill}
+ * that has been claimed from the {@link PaymentOutboxEntry} of the bill.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@AllArgsConstructor
+@ToString
+public class Payment {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the id of the outbox entry that the payment was claimed from.
+     */
+    @Getter
+    private final long entryId;
+
+    /**
+     * Stores the key that identifies the payment at the payment provider.
+     */
+    @Getter
+    private final String idempotencyKey;
+
+    /**
+     * Stores the amount that will be transfered.
+     */
+    @Getter
+    private final Money amount;
+
+    /**
+     * Stores the account that pays for the bill.
+     */
+    @Getter
+    private final Account sender;
+
+    /**
+     * Stores the account that receives the payment.
+     */
+    @Getter
+    private final Account recipient;
+
+    /**
+     * Stores the description explaining the reason for the transfer.
+     */
+    @Getter
+    private final String description;
+}
@@ -0,0 +1,522 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.billing;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.BankTransaction;
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+import de.oth.fkretschmar.advertisementproject.business.annotation.PayPalTransaction;
+import de.oth.fkretschmar.advertisementproject.business.services.base.ITransactionService;
+import de.oth.fkretschmar.advertisementproject.business.services.web.TransactionFailedException;
+import de.oth.fkretschmar.advertisementproject.business.services.web.TransactionFailureReason;
+import de.oth.fkretschmar.advertisementproject.entities.billing.BankAccount;
+import de.oth.fkretschmar.advertisementproject.entities.billing.PayPalAccount;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.inject.Inject;
+
+/**
+ * Sends the due payments of the payment outbox in batches on a bounded pool 
+ * of container managed threads, so that no database transaction is held open
+ * while a payment provider is called. The number of concurrent calls to 
+ * every provider is limited separately.
+ *
+ * Every provider is guarded by a {@link CircuitBreaker} and a bulkhead of 
+ * permits. While a provider fails its payments are deferred instead of 
+ * waiting for its timeouts.
+ *
+ * The outbox is checked periodically by a timer and whenever a billing chunk
+ * has been committed. Only as many payments are claimed as the pool can start
+ * right away, so that no payment is claimed again while it is still waiting
+ * for a thread. A payment is marked as sent before its provider is called and
+ * is never sent again automatically once its outcome is unknown, as the 
+ * providers do not recognize repeated payments.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class PaymentDispatcher {
+
+    // --------------- Private static constants ---------------
+
+    /**
+     * Defines the name of the bank provider.
+     */
+    private static final String BANK = "bank";
+
+    /**
+     * Defines the name of the pay pal provider.
+     */
+    private static final String PAY_PAL = "payPal";
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the service used to transfer money between bank accounts.
+     */
+    @Inject
+    @BankTransaction
+    private ITransactionService bankTransactionService;
+
+    /**
+     * Stores the maximum number of concurrent calls to the bank.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.bankConcurrency", defaultValue = "4")
+    private int bankConcurrency;
+
+    /**
+     * Stores the number of consecutive failures that open the circuit of a 
+     * provider.
+     */
+    @Inject
+    @ConfigurationValue(
+            name = "payments.breakerFailureThreshold", defaultValue = "5")
+    private int breakerFailureThreshold;
+
+    /**
+     * Stores the time in milliseconds that the circuit of a provider stays 
+     * open.
+     */
+    @Inject
+    @ConfigurationValue(
+            name = "payments.breakerOpenDuration", defaultValue = "30000")
+    private long breakerOpenDuration;
+
+    /**
+     * Stores the maximum time in milliseconds to wait for a permit of the
+     * bulkhead of a provider.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.bulkheadTimeout", defaultValue = "1000")
+    private long bulkheadTimeout;
+
+    /**
+     * Stores whether the last claim has been limited by the capacity of the
+     * pool, so that further payments are claimed as soon as threads become
+     * free.
+     */
+    private volatile boolean backlog;
+
+    /**
+     * Stores the maximum number of payments that are claimed at once.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.batchSize", defaultValue = "100")
+    private int batchSize;
+
+    /**
+     * Stores the lock that prevents the outbox from being claimed by two
+     * threads at the same time.
+     */
+    private final Lock claimLock = new ReentrantLock();
+
+    /**
+     * Stores the logger to log information for this class.
+     */
+    @Inject
+    private Logger logger;
+
+    /**
+     * Stores the service used to transfer money between pay pal accounts.
+     */
+    @Inject
+    @PayPalTransaction
+    private ITransactionService payPalTransactionService;
+
+    /**
+     * Stores the maximum number of concurrent calls to pay pal.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.payPalConcurrency", defaultValue = "4")
+    private int payPalConcurrency;
+
+    /**
+     * Stores the writer used to claim payments and write their outcome.
+     */
+    @Inject
+    private PaymentOutboxWriter paymentOutboxWriter;
+
+    /**
+     * Stores the interval in milliseconds in which the outbox is checked.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.pollInterval", defaultValue = "5000")
+    private long pollInterval;
+
+    /**
+     * Stores the number of payments that have been claimed but not finished.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * Stores the maximum number of claimed payments waiting for a thread.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.queueCapacity", defaultValue = "8")
+    private int queueCapacity;
+
+    /**
+     * Stores the factory used to create container managed threads.
+     */
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    /**
+     * Stores the service used to create the timer that checks the outbox.
+     */
+    @Resource
+    private TimerService timerService;
+
+    /**
+     * Stores the number of threads of the pool.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.threads", defaultValue = "8")
+    private int threads;
+
+    /**
+     * Stores the circuit breaker of the bank.
+     */
+    private CircuitBreaker bankBreaker;
+
+    /**
+     * Stores the permits for concurrent calls to the bank.
+     */
+    private Semaphore bankPermits;
+
+    /**
+     * Stores the pool that runs the payments.
+     */
+    private ExecutorService executor;
+
+    /**
+     * Stores the circuit breaker of pay pal.
+     */
+    private CircuitBreaker payPalBreaker;
+
+    /**
+     * Stores the permits for concurrent calls to pay pal.
+     */
+    private Semaphore payPalPermits;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Claims the due payments of the outbox batch by batch and runs them. If 
+     * another thread is already claiming payments, nothing is done. No more 
+     * payments are claimed than the threads and the queue of the pool can 
+     * take, the remaining ones are claimed once running payments finish.
+     */
+    public void dispatchDuePayments() {
+        if (!this.claimLock.tryLock()) {
+            return;
+        }
+        
+        try {
+            int capacity = this.threads + this.queueCapacity;
+            int claimable;
+            
+            this.backlog = false;
+            
+            while ((claimable = Math.min(
+                    this.batchSize, capacity - this.pending.get())) > 0) {
+                List<Payment> payments 
+                        = this.paymentOutboxWriter.claimDuePayments(claimable);
+                
+                this.pending.addAndGet(payments.size());
+                
+                for (Payment payment : payments) {
+                    this.executor.execute(() -> this.run(payment));
+                }
+                
+                if (payments.size() < claimable) {
+                    return;
+                }
+            }
+            
+            this.backlog = true;
+        } catch (RuntimeException ex) {
+            this.logger.log(
+                    Level.SEVERE, "The due payments could not be claimed.", ex);
+        } finally {
+            this.claimLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the current health of every payment provider.
+     *
+     * @return  the health of the providers.
+     */
+    public List<ProviderHealth> getProviderHealth() {
+        List<ProviderHealth> health = new ArrayList<ProviderHealth>();
+        health.add(this.bankBreaker.health());
+        health.add(this.payPalBreaker.health());
+        
+        return health;
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Creates the pool, the permits and circuit breakers of the providers and
+     * the timer that checks the outbox periodically.
+     */
+    @PostConstruct
+    private void initialize() {
+        this.bankPermits = new Semaphore(this.bankConcurrency);
+        this.payPalPermits = new Semaphore(this.payPalConcurrency);
+        this.bankBreaker = new CircuitBreaker(
+                PaymentDispatcher.BANK, 
+                this.breakerFailureThreshold, 
+                this.breakerOpenDuration);
+        this.payPalBreaker = new CircuitBreaker(
+                PaymentDispatcher.PAY_PAL, 
+                this.breakerFailureThreshold, 
+                this.breakerOpenDuration);
+
+        this.executor = new ThreadPoolExecutor(
+                this.threads,
+                this.threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(this.queueCapacity),
+                this.threadFactory,
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.timerService.createIntervalTimer(
+                this.pollInterval,
+                this.pollInterval,
+                new TimerConfig(null, false));
+    }
+
+
+    /**
+     * Gets called by the timer to check the outbox periodically.
+     */
+    @Timeout
+    private void onTimeout() {
+        this.dispatchDuePayments();
+    }
+
+
+    /**
+     * Runs the specified payment and claims further payments afterwards if 
+     * the last claim has been limited by the capacity of the pool.
+     *
+     * @param   payment the payment that will be run.
+     */
+    private void run(Payment payment) {
+        try {
+            this.pay(payment);
+        } finally {
+            this.pending.decrementAndGet();
+        }
+        
+        if (this.backlog) {
+            this.dispatchDuePayments();
+        }
+    }
+
+
+    /**
+     * Runs the specified payment using the provider of its sender and records
+     * its outcome. The payment is deferred without calling the provider if 
+     * the circuit of the provider is open or all permits of its bulkhead are
+     * taken.
+     *
+     * @param   payment the payment that will be run.
+     */
+    private void pay(Payment payment) {
+        ITransactionService transactionService;
+        CircuitBreaker breaker;
+        Semaphore permits;
+        
+        if (payment.getSender() instanceof PayPalAccount) {
+            transactionService = this.payPalTransactionService;
+            breaker = this.payPalBreaker;
+            permits = this.payPalPermits;
+        } else if (payment.getSender() instanceof BankAccount) {
+            transactionService = this.bankTransactionService;
+            breaker = this.bankBreaker;
+            permits = this.bankPermits;
+        } else {
+            this.paymentOutboxWriter.recordFailure(
+                    payment, 
+                    TransactionFailureReason.SENDER_NOT_VALID, 
+                    "The payment account is not supported.");
+            return;
+        }
+
+        if (!breaker.tryAcquire()) {
+            this.defer(payment, breaker.remainingOpenTime());
+            return;
+        }
+
+        boolean permitted;
+        try {
+            permitted = permits.tryAcquire(
+                    this.bulkheadTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            permitted = false;
+        }
+
+        if (!permitted) {
+            breaker.abandon();
+            this.defer(payment, this.bulkheadTimeout);
+            return;
+        }
+
+        // the payment stays claimed until its lease has expired if it can not
+        // be marked, which is safe as the provider has not been called yet
+        boolean marked;
+        try {
+            marked = this.paymentOutboxWriter.markSent(payment);
+        } catch (RuntimeException ex) {
+            this.logger.log(
+                    Level.SEVERE, 
+                    String.format("The payment \"%s\" could not be marked as "
+                            + "sent.", payment.getDescription()), 
+                    ex);
+            marked = false;
+        }
+
+        if (!marked) {
+            permits.release();
+            breaker.abandon();
+            return;
+        }
+
+        TransactionFailureReason reason = null;
+        String message = null;
+        boolean succeeded = false;
+        long start = System.nanoTime();
+
+        try {
+            transactionService.transfer(
+                    payment.getIdempotencyKey(),
+                    payment.getAmount(),
+                    payment.getSender(),
+                    payment.getRecipient(),
+                    payment.getDescription());
+            succeeded = true;
+        } catch (TransactionFailedException ex) {
+            reason = ex.getReason();
+            message = ex.getMessage();
+        } catch (RuntimeException ex) {
+            this.logger.log(
+                    Level.WARNING, 
+                    String.format("The payment \"%s\" failed.", 
+                            payment.getDescription()), 
+                    ex);
+            message = ex.getMessage();
+        } finally {
+            permits.release();
+        }
+
+        // only failures of the provider itself count against its circuit, a
+        // rejected transfer means that the provider is healthy
+        long latency = System.nanoTime() - start;
+        if (succeeded || (reason != null 
+                && reason != TransactionFailureReason.SERVICE_UNAVAILABLE
+                && reason != TransactionFailureReason.OUTCOME_UNKNOWN)) {
+            breaker.recordSuccess(latency);
+        } else {
+            breaker.recordFailure(latency);
+        }
+
+        // if the outcome can not be recorded, the payment stays marked as sent
+        // and is marked as unconfirmed once its lease has expired
+        try {
+            if (succeeded) {
+                this.paymentOutboxWriter.recordSuccess(payment);
+            } else {
+                this.paymentOutboxWriter.recordFailure(payment, reason, message);
+            }
+        } catch (RuntimeException ex) {
+            this.logger.log(
+                    Level.SEVERE, 
+                    String.format("The outcome of the payment \"%s\" could "
+                            + "not be recorded.", payment.getDescription()), 
+                    ex);
+        }
+    }
+
+
+    /**
+     * Defers the specified payment without counting it as an attempt.
+     *
+     * @param   payment the payment that will be deferred.
+     * @param   delay   the time in milliseconds after which the payment is
+     *                  due again.
+     */
+    private void defer(Payment payment, long delay) {
+        try {
+            this.paymentOutboxWriter.defer(payment, delay);
+        } catch (RuntimeException ex) {
+            this.logger.log(
+                    Level.SEVERE, 
+                    String.format("The payment \"%s\" could not be deferred.", 
+                            payment.getDescription()), 
+                    ex);
+        }
+    }
+
+
+    /**
+     * Shuts the pool down after the waiting payments have been run.
+     */
+    @PreDestroy
+    private void shutdown() {
+        this.executor.shutdown();
+        
+        try {
+            this.executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
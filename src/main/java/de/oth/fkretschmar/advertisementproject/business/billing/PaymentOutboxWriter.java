@@ -0,0 +1,271 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.billing;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+import de.oth.fkretschmar.advertisementproject.business.repositories.PaymentOutboxRepository;
+import de.oth.fkretschmar.advertisementproject.business.services.BillService;
+import de.oth.fkretschmar.advertisementproject.business.services.web.TransactionFailureReason;
+import de.oth.fkretschmar.advertisementproject.entities.billing.Account;
+import de.oth.fkretschmar.advertisementproject.entities.billing.BankAccount;
+import de.oth.fkretschmar.advertisementproject.entities.billing.Bill;
+import de.oth.fkretschmar.advertisementproject.entities.billing.PayPalAccount;
+import de.oth.fkretschmar.advertisementproject.entities.billing.PaymentOutboxEntry;
+import de.oth.fkretschmar.advertisementproject.entities.billing.PaymentState;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+/**
+ * Claims the due {@link PaymentOutboxEntry} instances and records the outcome
+ * of their payments, each within a transaction of its own.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@Dependent
+public class PaymentOutboxWriter {
+
+    // --------------- Private static constants ---------------
+    
+    /**
+     * Defines the initial overdue charge if the account which is supposed to pay
+     * a bill has not enough money on it.
+     */
+    private static final Money INITIAL_OVERDUE_CHARGE 
+            = Money.of(CurrencyUnit.EUR, 10);
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the time in milliseconds to wait before the first retry of a 
+     * failed payment, which doubles with every further attempt.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.initialBackoff", defaultValue = "1000")
+    private long initialBackoff;
+
+    /**
+     * Stores the time in milliseconds that a claimed payment is not claimed
+     * again, unless its outcome is recorded before.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.lease", defaultValue = "300000")
+    private long lease;
+
+    /**
+     * Stores the maximum number of attempts of a payment.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.maxAttempts", defaultValue = "8")
+    private int maxAttempts;
+
+    /**
+     * Stores the maximum time in milliseconds to wait before a retry.
+     */
+    @Inject
+    @ConfigurationValue(name = "payments.maxBackoff", defaultValue = "600000")
+    private long maxBackoff;
+
+    /**
+     * Stores the repository used to manage {@link PaymentOutboxEntry} 
+     * entites.
+     */
+    @Inject
+    private PaymentOutboxRepository paymentOutboxRepository;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Claims up to the specified number of due payments by moving their next
+     * attempt past the lease. A due payment that has been sent by an attempt
+     * whose outcome was never recorded is not claimed but marked as 
+     * unconfirmed, as it might have been executed already.
+     *
+     * @param   maxPayments the maximum number of claimed payments.
+     * @return  the claimed payments.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public List<Payment> claimDuePayments(int maxPayments) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Payment> payments = new ArrayList<Payment>();
+        
+        for (PaymentOutboxEntry entry 
+                : this.paymentOutboxRepository.findDue(now, maxPayments)) {
+            Bill bill = entry.getBill();
+            Account sender = bill.getCampaign().getPaymentAccount();
+            Account recipient;
+            
+            if (sender instanceof PayPalAccount) {
+                recipient = BillService.OWN_PAYPAL_ACCOUNT;
+            } else if (sender instanceof BankAccount) {
+                recipient = BillService.OWN_BANK_ACCOUNT;
+            } else {
+                this.complete(entry, PaymentState.FAILED);
+                continue;
+            }
+            
+            if (entry.isSent()) {
+                this.complete(entry, PaymentState.UNCONFIRMED);
+                continue;
+            }
+            
+            entry.setAttempts(entry.getAttempts() + 1);
+            entry.setNextAttempt(now.plus(this.lease, ChronoUnit.MILLIS));
+            
+            payments.add(new Payment(
+                    entry.getId(),
+                    entry.getIdempotencyKey(),
+                    bill.getTotalPrice(),
+                    sender,
+                    recipient,
+                    String.format(
+                            "Payment for bill %s of campaign %s",
+                            bill.getId(),
+                            bill.getCampaign().getId())));
+        }
+        
+        return payments;
+    }
+
+
+    /**
+     * Defers the specified payment, which has not reached its provider, 
+     * without counting it as an attempt.
+     *
+     * @param   payment the payment.
+     * @param   delay   the time in milliseconds after which the payment is
+     *                  due again.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void defer(Payment payment, long delay) {
+        PaymentOutboxEntry entry 
+                = this.paymentOutboxRepository.find(payment.getEntryId());
+        
+        if (entry != null) {
+            entry.setAttempts(Math.max(0, entry.getAttempts() - 1));
+            entry.setNextAttempt(
+                    LocalDateTime.now().plus(delay, ChronoUnit.MILLIS));
+        }
+    }
+
+
+    /**
+     * Marks the specified payment as sent before its provider is called, so 
+     * that it is not sent again if its outcome can not be recorded.
+     *
+     * @param   payment the payment.
+     * @return  {@code true} if the payment has been marked, {@code false} if
+     *          it is no longer in the outbox.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public boolean markSent(Payment payment) {
+        PaymentOutboxEntry entry 
+                = this.paymentOutboxRepository.find(payment.getEntryId());
+        
+        if (entry == null) {
+            return false;
+        }
+        
+        entry.setSent(true);
+        return true;
+    }
+
+
+    /**
+     * Records that the specified payment has succeeded.
+     *
+     * @param   payment the payment.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void recordSuccess(Payment payment) {
+        PaymentOutboxEntry entry 
+                = this.paymentOutboxRepository.find(payment.getEntryId());
+        
+        if (entry != null) {
+            this.complete(entry, PaymentState.PAID);
+        }
+    }
+
+
+    /**
+     * Records that the specified payment has failed. Payments that failed 
+     * because their provider could not be reached are retried with an 
+     * exponentially growing delay until the maximum number of attempts is 
+     * reached. Payments whose outcome is not known are never retried but 
+     * marked as unconfirmed.
+     *
+     * @param   payment the payment.
+     * @param   reason  the reason of the failure or {@code null} if it is not
+     *                  known.
+     * @param   message the message describing the failure.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void recordFailure(
+            Payment payment, TransactionFailureReason reason, String message) {
+        PaymentOutboxEntry entry 
+                = this.paymentOutboxRepository.find(payment.getEntryId());
+        
+        if (entry == null) {
+            return;
+        }
+        
+        if (reason == TransactionFailureReason.SENDER_OUT_OF_MONEY) {
+            entry.getBill().setOverdue(true);
+            entry.getBill().setOverdueCharge(
+                    PaymentOutboxWriter.INITIAL_OVERDUE_CHARGE);
+            this.complete(entry, PaymentState.OVERDUE);
+        } else if (reason == null 
+                || reason == TransactionFailureReason.OUTCOME_UNKNOWN) {
+            this.complete(entry, PaymentState.UNCONFIRMED);
+        } else if (reason == TransactionFailureReason.SERVICE_UNAVAILABLE
+                && entry.getAttempts() < this.maxAttempts) {
+            long backoff = Math.min(
+                    this.initialBackoff << Math.min(entry.getAttempts() - 1, 30),
+                    this.maxBackoff);
+            
+            entry.setNextAttempt(
+                    LocalDateTime.now().plus(backoff, ChronoUnit.MILLIS));
+            entry.setLastError(message);
+            entry.setSent(false);
+        } else {
+            this.complete(entry, PaymentState.FAILED);
+        }
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Records the final state of the payment on its bill and removes the 
+     * specified entry from the outbox.
+     *
+     * @param   entry   the entry of the payment.
+     * @param   state   the final state of the payment.
+     */
+    private void complete(PaymentOutboxEntry entry, PaymentState state) {
+        entry.getBill().setPaymentState(state);
+        this.paymentOutboxRepository.remove(entry);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.billing;
+
+import java.io.Serializable;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Represents the health of a payment provider as seen by its 
+ * {@link CircuitBreaker} at one point in time.
+ *
+ * @author fkre
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlRootElement(name = "Provider")
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor
+@ToString
+public class ProviderHealth implements Serializable {
+
+    // --------------- Private fields ---------------
+    
+    /**
+     * Stores the name of the provider.
+     */
+    @Getter
+    @XmlAttribute(name = "name")
+    private String name;
+
+    /**
+     * Stores the state of the circuit of the provider.
+     */
+    @Getter
+    @XmlAttribute(name = "state")
+    private CircuitState state;
+
+    /**
+     * Stores the number of calls that have reached the provider.
+     */
+    @Getter
+    @XmlAttribute(name = "calls")
+    private long calls;
+
+    /**
+     * Stores the number of calls that failed because of the provider.
+     */
+    @Getter
+    @XmlAttribute(name = "failures")
+    private long failures;
+
+    /**
+     * Stores the number of calls that were rejected without reaching the 
+     * provider.
+     */
+    @Getter
+    @XmlAttribute(name = "rejections")
+    private long rejections;
+
+    /**
+     * Stores the average latency of a call in milliseconds.
+     */
+    @Getter
+    @XmlAttribute(name = "averageLatency")
+    private double averageLatency;
+
+    /**
+     * Stores the latency of the slowest call in milliseconds.
+     */
+    @Getter
+    @XmlAttribute(name = "maxLatency")
+    private double maxLatency;
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.cache;
+
+import java.io.Serializable;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlRootElement;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Represents the usage of one region of the {@link SharedCache} since the
+ * application has been started.
+ *
+ * @author fkre
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlRootElement(name = "Region")
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+@AllArgsConstructor
+@ToString
+public class CacheRegionStatistics implements Serializable {
+
+    // --------------- Private fields ---------------
+    
+    /**
+     * Stores the name of the region.
+     */
+    @Getter
+    @XmlAttribute(name = "name")
+    private String name;
+
+    /**
+     * Stores the number of lookups that have been answered by the region.
+     */
+    @Getter
+    @XmlAttribute(name = "hits")
+    private long hits;
+
+    /**
+     * Stores the number of lookups that had to go to the database.
+     */
+    @Getter
+    @XmlAttribute(name = "misses")
+    private long misses;
+
+    /**
+     * Stores the number of entries that have been put into the region.
+     */
+    @Getter
+    @XmlAttribute(name = "puts")
+    private long puts;
+
+    /**
+     * Stores the number of entries that are currently held by the region.
+     */
+    @Getter
+    @XmlAttribute(name = "entries")
+    private long entries;
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.cache;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.BillCreated;
+import de.oth.fkretschmar.advertisementproject.business.annotation.ContentChanged;
+import de.oth.fkretschmar.advertisementproject.business.events.EntityEvent;
+import de.oth.fkretschmar.advertisementproject.entities.billing.Account;
+import de.oth.fkretschmar.advertisementproject.entities.billing.Bill;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Campaign;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+
+/**
+ * Keeps the second level cache of the read mostly {@link Campaign}, 
+ * {@link Content}, {@link TargetContext} and {@link Account} entities in 
+ * line with the changes announced by events and exposes its statistics.
+ * The size and lifespan of the cached entries are configured within the 
+ * persistence unit.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@ApplicationScoped
+public class SharedCache {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the factory whose second level cache is managed.
+     */
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Gets the usage of every region of the cache.
+     *
+     * @return  the statistics of the regions.
+     */
+    public List<CacheRegionStatistics> getStatistics() {
+        Statistics statistics = this.entityManagerFactory
+                .unwrap(SessionFactory.class)
+                .getStatistics();
+        List<CacheRegionStatistics> regions 
+                = new ArrayList<CacheRegionStatistics>();
+
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            SecondLevelCacheStatistics regionStatistics 
+                    = statistics.getSecondLevelCacheStatistics(region);
+            
+            regions.add(new CacheRegionStatistics(
+                    region,
+                    regionStatistics.getHitCount(),
+                    regionStatistics.getMissCount(),
+                    regionStatistics.getPutCount(),
+                    regionStatistics.getElementCountInMemory()));
+        }
+
+        return regions;
+    }
+
+    /**
+     * Evicts the changed content, its target context and its campaign from 
+     * the cache as soon as the transaction in which the content has been 
+     * changed was successfully committed.
+     *
+     * @param   event   the event containing the changed content.
+     */
+    public void onContentChanged(
+            @Observes(during = TransactionPhase.AFTER_SUCCESS)
+            @ContentChanged EntityEvent<Content> event) {
+        Content content = event.getEntity();
+        Cache cache = this.entityManagerFactory.getCache();
+
+        cache.evict(Content.class, content.getId());
+
+        if (content.getContext() != null) {
+            cache.evict(TargetContext.class, content.getContext().getId());
+        }
+
+        if (content.getCampaign() != null) {
+            cache.evict(Campaign.class, content.getCampaign().getId());
+        }
+    }
+
+    /**
+     * Evicts the campaign of the created bill from the cache as soon as the
+     * transaction in which the bill has been created was successfully 
+     * committed.
+     *
+     * @param   event   the event containing the created bill.
+     */
+    public void onBillCreated(
+            @Observes(during = TransactionPhase.AFTER_SUCCESS)
+            @BillCreated EntityEvent<Bill> event) {
+        Bill bill = event.getEntity();
+
+        if (bill.getCampaign() != null) {
+            this.entityManagerFactory.getCache().evict(
+                    Campaign.class, bill.getCampaign().getId());
+        }
+    }
+}
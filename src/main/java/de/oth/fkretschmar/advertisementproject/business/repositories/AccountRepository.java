@@ -29,7 +29,7 @@ import javax.enterprise.context.Dependent;
  * @author  fkre    Floyd Kretschmar
  */
 @Dependent
-public class AccountRepository extends AbstractRepository<String, Account> {
+public class AccountRepository extends AbstractRepository<Long, Account> {
     
     // --------------- Public constructors ---------------
 
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.repositories;
+
+import de.oth.fkretschmar.advertisementproject.business.repositories.base.AbstractRepository;
+import de.oth.fkretschmar.advertisementproject.entities.billing.BillingRun;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.PaymentInterval;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.enterprise.context.Dependent;
+import javax.persistence.TypedQuery;
+
+/**
+ * Repository that defines the default CRUD methods for a {@link BillingRun}.
+ *
+ * @author fkre
+ */
+@Dependent
+public class BillingRunRepository extends AbstractRepository<Long, BillingRun> {
+    
+    // --------------- Public constructors ---------------
+
+    /**
+     * Creates an new instance of {@link BillingRunRepository}.
+     */
+    public BillingRunRepository() {
+        super(BillingRun.class);
+    }
+    
+    // --------------- Public methods ---------------
+    
+    /**
+     * Finds the oldest unfinished billing run of the specified payment 
+     * interval.
+     * 
+     * @param   interval    the interval.
+     * @return  the unfinished run or {@code null} if all runs are finished.
+     */
+    public BillingRun findUnfinished(PaymentInterval interval) {
+        TypedQuery<BillingRun> query = this.accessQuery(
+                BillingRun.class, 
+                BillingRun.FIND_UNFINISHED,
+                interval);
+        List<BillingRun> runs = query.setMaxResults(1).getResultList();
+        
+        return runs.isEmpty() ? null : runs.get(0);
+    }
+    
+    // --------------- Protected methods ---------------
+
+    /**
+     * Creates a set to store multiple {@link BillingRun} instances.
+     
+     * @return  A set that can store multiple {@link BillingRun} instances.
+     */
+    @Override
+    protected Collection<BillingRun> createCollection() {
+        return new ArrayList<BillingRun>();
+    }
+}
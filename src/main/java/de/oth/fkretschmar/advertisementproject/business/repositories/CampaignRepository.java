@@ -21,7 +21,9 @@ import de.oth.fkretschmar.advertisementproject.entities.campaign.Campaign;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import javax.enterprise.context.Dependent;
+import javax.persistence.TypedQuery;
 
 /**
  * Repository that defines the default CRUD methods for an {@link Campaign}.
@@ -40,6 +42,24 @@ public class CampaignRepository extends AbstractRepository<Long, Campaign> {
         super(Campaign.class);
     }
     
+    // --------------- Public methods ---------------
+    
+    /**
+     * Finds all campaigns of the specified user and loads their bills without
+     * the items of the bills.
+     * 
+     * @param   comissionerId   the id of the user.
+     * @return  the campaigns of the user.
+     */
+    public List<Campaign> findWithBillsForComissioner(String comissionerId) {
+        TypedQuery<Campaign> query = this.accessQuery(
+                Campaign.class, 
+                Campaign.FIND_FOR_COMISSIONER,
+                comissionerId);
+        
+        return this.useGraph(query, Campaign.GRAPH_BILLS).getResultList();
+    }
+    
     // --------------- Protected methods ---------------
 
     /**
@@ -19,17 +19,11 @@ package de.oth.fkretschmar.advertisementproject.business.repositories;
 import de.oth.fkretschmar.advertisementproject.business.repositories.base.AbstractRepository;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.ContentFormat;
-import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetContext;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.EnumSet;
 import java.util.List;
-import java.util.Optional;
-import java.util.concurrent.ThreadLocalRandom;
 import javax.enterprise.context.Dependent;
-import javax.persistence.ParameterMode;
-import javax.persistence.StoredProcedureQuery;
 import javax.persistence.TypedQuery;
 
 /**
@@ -38,11 +32,7 @@ import javax.persistence.TypedQuery;
  * @author fkre Floyd Kretschmar
  */
 @Dependent
-public class ContentRepository extends AbstractRepository<String, Content> {
-
-    // --------------- Private static constants ---------------
-    private static final String MATCHING_CONTENTS_PROCEDURE
-            = "P_FIND_MATCHING_CONTENTS";
+public class ContentRepository extends AbstractRepository<Long, Content> {
 
     // --------------- Public constructors ---------------
     /**
@@ -54,78 +44,31 @@ public class ContentRepository extends AbstractRepository<String, Content> {
 
     // --------------- Public methods ---------------
     /**
-     * Finds a random content.
+     * Subtracts the specified number of consumed requests from the remaining
+     * requests of the content with the specified id without loading it.
      *
-     * @param   format  the format that the content is supposed to have.
-     * @return a random content.
+     * @param   id          the id of the content.
+     * @param   requests    the number of consumed requests.
      */
-    public Optional<Content> findRandomContent(ContentFormat format) {
-        TypedQuery<Content> query = this.accessQuery(
-                Content.class,
-                Content.FIND_ALL_ACTIVE,
-                format);
-
-        List<Content> results = query.getResultList();
-
-        if (!results.isEmpty()) {
-            int randomPos = ThreadLocalRandom.current().nextInt(results.size());
-            return Optional.of(results.get(randomPos));
-        }
-        
-        return Optional.empty();
+    public void consumeRequests(Long id, long requests) {
+        this.executeUpdate(Content.CONSUME_REQUESTS, requests, id);
     }
 
     /**
-     * Retrieves all contents that best match the provided
-     * {@link TargetContext}.
+     * Finds all active contents (number of requests greater 0 and campaign is 
+     * running) of the specified format. The campaign and the target context
+     * of the contents are loaded with the same query.
      *
-     * @param   context the context that specifies the targets for the requestet
-     *                  content.
-     * @param   format  the format that the content is supposed to have.
-     * @return the matching contents.
+     * @param   format  the format that the contents are supposed to have.
+     * @return the active contents.
      */
-    public List<Object[]> findMatchingContents(
-            TargetContext context, ContentFormat format) {
-        StoredProcedureQuery query
-                = this.getEntityManager().createStoredProcedureQuery(
-                        ContentRepository.MATCHING_CONTENTS_PROCEDURE);
-
-        query.registerStoredProcedureParameter(
-                "TARGET_AGE",
-                String.class,
-                ParameterMode.IN);
-        query.registerStoredProcedureParameter(
-                "TARGET_GENDER",
-                String.class,
-                ParameterMode.IN);
-        query.registerStoredProcedureParameter(
-                "TARGET_MARITAL_STATUS",
-                String.class,
-                ParameterMode.IN);
-        query.registerStoredProcedureParameter(
-                "TARGET_PURPOSE_OF_USE",
-                String.class,
-                ParameterMode.IN);
-        query.registerStoredProcedureParameter(
-                "CONTENT_FORMAT",
-                String.class,
-                ParameterMode.IN);
-
-        query.setParameter(
-                "TARGET_AGE",
-                this.buildParameterString(context.getAge()));
-        query.setParameter(
-                "TARGET_GENDER",
-                this.buildParameterString(context.getGender()));
-        query.setParameter(
-                "TARGET_MARITAL_STATUS",
-                this.buildParameterString(context.getMaritalStatus()));
-        query.setParameter(
-                "TARGET_PURPOSE_OF_USE",
-                this.buildParameterString(context.getPurposeOfUse()));
-        query.setParameter("CONTENT_FORMAT", format.name());
+    public List<Content> findAllActive(ContentFormat format) {
+        TypedQuery<Content> query = this.accessQuery(
+                Content.class,
+                Content.FIND_ALL_ACTIVE,
+                format);
 
-        return query.getResultList();
+        return this.useGraph(query, Content.GRAPH_SERVING).getResultList();
     }
 
     // --------------- Protected methods ---------------
@@ -138,23 +81,4 @@ public class ContentRepository extends AbstractRepository<String, Content> {
     protected Collection<Content> createCollection() {
         return new ArrayList<Content>();
     }
-
-    // --------------- Private methods ---------------
-    /**
-     * Converts an enum set into a string to be used by the procedure for
-     * finding matching contents.
-     *
-     * @param <T> the type of the enum that is being managed by the enum set.
-     * @param enumValues the actual enum set containing the values.
-     * @return the parameter string.
-     */
-    private <T extends Enum<T>> String buildParameterString(EnumSet<T> enumValues) {
-        String parameterString = "";
-
-        for (Enum<T> enumValue : enumValues) {
-            parameterString += String.format("%s;", enumValue.name());
-        }
-
-        return parameterString;
-    }
 }
@@ -18,12 +18,10 @@ package de.oth.fkretschmar.advertisementproject.business.repositories;
 
 import de.oth.fkretschmar.advertisementproject.business.repositories.base.AbstractRepository;
 import de.oth.fkretschmar.advertisementproject.entities.billing.ContentRequest;
-import de.oth.fkretschmar.advertisementproject.entities.campaign.PaymentInterval;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import javax.enterprise.context.Dependent;
-import javax.persistence.TypedQuery;
 
 /**
  * Repository that defines the default CRUD methods for an {@link ContentRequest}.
@@ -42,25 +40,6 @@ public class ContentRequestRepository extends AbstractRepository<Long, ContentRe
         super(ContentRequest.class);
     }
     
-    // --------------- Public methods ---------------
-    
-    
-    /**
-     * Finds all pending content requests for the specified payment interval.
-     * 
-     * @param   interval  the interval.
-     * @return  the collection of pending requests.
-     */
-    public Collection<ContentRequest> findForPaymentInterval(
-            PaymentInterval interval) {
-        TypedQuery<ContentRequest> query = this.accessQuery(
-                ContentRequest.class, 
-                ContentRequest.FIND_FOR_PAYMENT_INTERVAL,
-                interval);
-        
-        return query.getResultList();
-    }
-    
     // --------------- Protected methods ---------------
 
     /**
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.repositories;
+
+import de.oth.fkretschmar.advertisementproject.business.repositories.base.AbstractRepository;
+import de.oth.fkretschmar.advertisementproject.entities.billing.Bill;
+import de.oth.fkretschmar.advertisementproject.entities.billing.ContentRequestCount;
+import de.oth.fkretschmar.advertisementproject.entities.billing.ImpressionRollup;
+import de.oth.fkretschmar.advertisementproject.entities.billing.ImpressionRollupKey;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.PaymentInterval;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.enterprise.context.Dependent;
+import javax.persistence.TypedQuery;
+import org.hibernate.Session;
+
+/**
+ * Repository that defines the default CRUD methods for an 
+ * {@link ImpressionRollup}.
+ *
+ * @author fkre
+ */
+@Dependent
+public class ImpressionRollupRepository 
+        extends AbstractRepository<ImpressionRollupKey, ImpressionRollup> {
+    
+    // --------------- Public constructors ---------------
+
+    /**
+     * Creates an new instance of {@link ImpressionRollupRepository}.
+     */
+    public ImpressionRollupRepository() {
+        super(ImpressionRollup.class);
+    }
+    
+    // --------------- Public methods ---------------
+    
+    /**
+     * Adds the specified number of requests to every rollup using one JDBC 
+     * batch of upserts. The increments should be passed in a stable order, so
+     * that concurrent batches lock the rows in the same order.
+     * <p>
+     * The increments of a rollup that has been billed in the meantime, e.g. 
+     * because the batch has been waiting for locks, are added to the rollup
+     * of the current hour instead, which is never billed yet.
+     * 
+     * @param   increments  the number of requests mapped by the key of the
+     *                      rollup they are added to.
+     */
+    public void increment(Map<ImpressionRollupKey, Long> increments) {
+        this.upsert(increments);
+        
+        // the billed rollups cannot change anymore since the upserts hold the
+        // locks of all incremented rollups until the transaction commits
+        LocalDateTime currentHour 
+                = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        Set<Long> contentIds = new HashSet<Long>();
+        Set<LocalDateTime> pastHours = new HashSet<LocalDateTime>();
+        
+        increments.keySet().forEach(key -> {
+            if (key.getHourBucket().isBefore(currentHour)) {
+                contentIds.add(key.getContentId());
+                pastHours.add(key.getHourBucket());
+            }
+        });
+        
+        if (pastHours.isEmpty())
+            return;
+        
+        Set<ImpressionRollupKey> billedKeys = new HashSet<ImpressionRollupKey>(
+                this.accessQuery(
+                        ImpressionRollupKey.class, 
+                        ImpressionRollup.FIND_BILLED_KEYS, 
+                        contentIds, 
+                        pastHours).getResultList());
+        
+        if (billedKeys.isEmpty())
+            return;
+        
+        // the increments are ordered by content and source before the hour,
+        // so inserting them in their order keeps the locking order stable
+        Map<ImpressionRollupKey, Long> redirected 
+                = new LinkedHashMap<ImpressionRollupKey, Long>();
+        
+        increments.forEach((key, requests) -> {
+            if (billedKeys.contains(key)) {
+                redirected.merge(
+                        new ImpressionRollupKey(
+                                key.getContentId(), 
+                                key.getRequestSource(), 
+                                currentHour), 
+                        requests, 
+                        Long::sum);
+            }
+        });
+        
+        this.upsert(redirected);
+    }
+    
+    /**
+     * Finds the ids of the campaigns of the specified payment interval that 
+     * have pending requests in the hours before the specified hour.
+     * 
+     * @param   interval        the interval.
+     * @param   cutoff          the hour before which the requests are billed.
+     * @param   afterCampaignId the id after which the campaigns are found.
+     * @param   maxResults      the maximum number of ids that are found.
+     * @return  the ids of the campaigns in ascending order.
+     */
+    public List<Long> findCampaignsForPaymentInterval(
+            PaymentInterval interval, 
+            LocalDateTime cutoff, 
+            long afterCampaignId,
+            int maxResults) {
+        TypedQuery<Long> query = this.accessQuery(
+                Long.class, 
+                ImpressionRollup.FIND_CAMPAIGNS_FOR_PAYMENT_INTERVAL,
+                interval,
+                cutoff,
+                afterCampaignId);
+        
+        return query.setMaxResults(maxResults).getResultList();
+    }
+    
+    /**
+     * Counts the pending requests of every content of the specified campaigns
+     * in the hours before the specified hour.
+     * 
+     * @param   campaignIds the ids of the campaigns.
+     * @param   cutoff      the hour before which the requests are counted.
+     * @return  the number of requests per content ordered by campaign.
+     */
+    public List<ContentRequestCount> countForCampaigns(
+            Collection<Long> campaignIds, LocalDateTime cutoff) {
+        TypedQuery<ContentRequestCount> query = this.accessQuery(
+                ContentRequestCount.class, 
+                ImpressionRollup.COUNT_FOR_CAMPAIGNS,
+                campaignIds,
+                cutoff);
+        
+        return query.getResultList();
+    }
+    
+    /**
+     * Attaches the specified bill to all unbilled rollups of the specified 
+     * contents in the hours before the specified hour using a single update.
+     * 
+     * @param   bill        the bill that will be attached.
+     * @param   contentIds  the ids of the billed contents.
+     * @param   cutoff      the hour before which the rollups are attached.
+     * @return  the number of rollups that the bill has been attached to.
+     */
+    public int attachBill(
+            Bill bill, Collection<Long> contentIds, LocalDateTime cutoff) {
+        return this.executeUpdate(
+                ImpressionRollup.ATTACH_BILL, 
+                bill,
+                contentIds,
+                cutoff);
+    }
+    
+    // --------------- Protected methods ---------------
+
+    /**
+     * Creates a set to store multiple {@link ImpressionRollup} instances.
+     
+     * @return  A set that can store multiple {@link ImpressionRollup} 
+     *          instances.
+     */
+    @Override
+    protected Collection<ImpressionRollup> createCollection() {
+        return new ArrayList<ImpressionRollup>();
+    }
+    
+    // --------------- Private methods ---------------
+    
+    /**
+     * Executes the upserts of the specified increments as one JDBC batch.
+     * 
+     * @param   increments  the number of requests mapped by the key of the
+     *                      rollup they are added to.
+     */
+    private void upsert(Map<ImpressionRollupKey, Long> increments) {
+        this.getEntityManager().unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement 
+                    = connection.prepareStatement(ImpressionRollup.UPSERT)) {
+                for (Map.Entry<ImpressionRollupKey, Long> increment 
+                        : increments.entrySet()) {
+                    ImpressionRollupKey key = increment.getKey();
+                    
+                    statement.setLong(1, key.getContentId());
+                    statement.setString(2, key.getRequestSource());
+                    statement.setTimestamp(3, Timestamp.valueOf(key.getHourBucket()));
+                    statement.setLong(4, increment.getValue());
+                    statement.addBatch();
+                }
+                
+                statement.executeBatch();
+            }
+        });
+    }
+}
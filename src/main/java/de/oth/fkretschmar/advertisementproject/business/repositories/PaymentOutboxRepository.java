@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.repositories;
+
+import de.oth.fkretschmar.advertisementproject.business.repositories.base.AbstractRepository;
+import de.oth.fkretschmar.advertisementproject.entities.billing.PaymentOutboxEntry;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.enterprise.context.Dependent;
+import javax.persistence.TypedQuery;
+
+/**
+ * Repository that defines the default CRUD methods for a 
+ * {@link PaymentOutboxEntry}.
+ *
+ * @author fkre
+ */
+@Dependent
+public class PaymentOutboxRepository 
+        extends AbstractRepository<Long, PaymentOutboxEntry> {
+    
+    // --------------- Public constructors ---------------
+
+    /**
+     * Creates an new instance of {@link PaymentOutboxRepository}.
+     */
+    public PaymentOutboxRepository() {
+        super(PaymentOutboxEntry.class);
+    }
+    
+    // --------------- Public methods ---------------
+    
+    /**
+     * Finds the entries whose next attempt is due at the specified point in 
+     * time.
+     * 
+     * @param   now         the point in time.
+     * @param   maxResults  the maximum number of entries that are found.
+     * @return  the due entries, the longest overdue first.
+     */
+    public List<PaymentOutboxEntry> findDue(LocalDateTime now, int maxResults) {
+        TypedQuery<PaymentOutboxEntry> query = this.accessQuery(
+                PaymentOutboxEntry.class, 
+                PaymentOutboxEntry.FIND_DUE,
+                now);
+        
+        return query.setMaxResults(maxResults).getResultList();
+    }
+    
+    // --------------- Protected methods ---------------
+
+    /**
+     * Creates a set to store multiple {@link PaymentOutboxEntry} instances.
+     
+     * @return  A set that can store multiple {@link PaymentOutboxEntry} 
+     *          instances.
+     */
+    @Override
+    protected Collection<PaymentOutboxEntry> createCollection() {
+        return new ArrayList<PaymentOutboxEntry>();
+    }
+}
@@ -16,10 +16,19 @@
  */
 package de.oth.fkretschmar.advertisementproject.business.repositories.base;
 
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
 import de.oth.fkretschmar.advertisementproject.entities.base.EntityState;
 import de.oth.fkretschmar.advertisementproject.entities.base.IEntity;
 
+import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
@@ -31,6 +40,9 @@ import java.util.List;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 
 /**
  * Represents an repository that defines the default CRUD methods when using
@@ -46,6 +58,12 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
     
     private static final String PERSISTENCE_ID = "FKREWS1617_PU";
     
+    /**
+     * Defines the hint that specifies the entity graph, whose attributes are
+     * loaded while all other associations are treated as lazy.
+     */
+    private static final String FETCH_GRAPH_HINT = "javax.persistence.fetchgraph";
+    
     // --------------- Private fields ---------------
 
     /**
@@ -59,6 +77,24 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
     @PersistenceContext(name = AbstractRepository.PERSISTENCE_ID)
     @Getter(AccessLevel.PROTECTED)
     private EntityManager entityManager;
+    
+    /**
+     * Stores the number of entities after which the changes are flushed as
+     * one JDBC batch while persisting or merging a collection. Should match
+     * the JDBC batch size of the persistence unit.
+     */
+    @Inject
+    @ConfigurationValue(name = "persistence.batchSize", defaultValue = "50")
+    private int batchSize;
+    
+    /**
+     * Stores the number of rows that are fetched from the database at once 
+     * while streaming the results of a query. MySQL only honors the fetch 
+     * size if the data source uses server side cursors (useCursorFetch).
+     */
+    @Inject
+    @ConfigurationValue(name = "persistence.fetchSize", defaultValue = "1000")
+    private int fetchSize;
 
     
     // --------------- Public constructor ---------------
@@ -89,6 +125,36 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
     }
     
     
+    /**
+     * Finds the entity for the specified id and loads the associations of the
+     * specified named entity graph along with it.
+     * 
+     * @param   id          that specifies the entity that will be found.
+     * @param   graphName   the name of the entity graph that will be loaded.
+     * @return  The entity with the specified id.
+     */
+    public final T find(S id, String graphName) {
+        return this.getEntityManager().find(
+                this.entityType, 
+                id, 
+                Collections.<String, Object>singletonMap(
+                        AbstractRepository.FETCH_GRAPH_HINT,
+                        this.getEntityManager().getEntityGraph(graphName)));
+    }
+    
+    
+    /**
+     * Gets a reference to the entity with the specified id without loading
+     * its state from the database.
+     * 
+     * @param   id  that specifies the entity that will be referenced.
+     * @return  The reference to the entity with the specified id.
+     */
+    public final T getReference(S id) {
+        return this.getEntityManager().getReference(this.entityType, id);
+    }
+    
+    
     /**
      * Finds all of the entities of this type.
      * 
@@ -106,6 +172,93 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
     }
     
     
+    /**
+     * Streams all of the entities of this type without loading all of them at
+     * once. The stream has to be closed after it has been consumed.
+     * 
+     * @return  the stream of entities.
+     * @see     #stream(javax.persistence.TypedQuery) 
+     */
+    public final Stream<T> streamAll() {
+        return this.stream(this.createQuery(
+                this.entityType, 
+                "SELECT entity FROM " + this.getEntityName() + " entity"));
+    }
+    
+    
+    /**
+     * Finds the page of entities that follows the entity with the specified 
+     * id, ordered by id. Only works for entities with a single comparable id.
+     * 
+     * @param   lastId      the id of the last entity of the previous page or 
+     *                      {@code null} to find the first page.
+     * @param   pageSize    the maximum number of entities of the page.
+     * @return  the entities of the page.
+     */
+    public final List<T> findPageAfterId(S lastId, int pageSize) {
+        TypedQuery<T> query;
+        
+        if (lastId == null) {
+            query = this.createQuery(
+                    this.entityType,
+                    " SELECT    entity "
+                    + " FROM    " + this.getEntityName() + " entity "
+                    + " ORDER BY entity.id");
+        } else {
+            query = this.createQuery(
+                    this.entityType,
+                    " SELECT    entity "
+                    + " FROM    " + this.getEntityName() + " entity "
+                    + " WHERE   entity.id > ?1"
+                    + " ORDER BY entity.id",
+                    lastId);
+        }
+        
+        return query.setMaxResults(pageSize).getResultList();
+    }
+    
+    
+    /**
+     * Finds the page of entities that follows the entity with the specified
+     * generation date and id, ordered by generation date and id. Only works
+     * for entities that store their generation date.
+     * 
+     * @param   lastGenerationDate  the generation date of the last entity of
+     *                              the previous page or {@code null} to find
+     *                              the first page.
+     * @param   lastId              the id of the last entity of the previous 
+     *                              page.
+     * @param   pageSize            the maximum number of entities of the page.
+     * @return  the entities of the page.
+     */
+    public final List<T> findPageAfterGenerationDate(
+            LocalDateTime lastGenerationDate, S lastId, int pageSize) {
+        TypedQuery<T> query;
+        
+        if (lastGenerationDate == null) {
+            query = this.createQuery(
+                    this.entityType,
+                    " SELECT    entity "
+                    + " FROM    " + this.getEntityName() + " entity "
+                    + " ORDER BY entity.generationDate, entity.id");
+        } else {
+            // the id breaks the ties between entities generated at the same 
+            // time, so that no entity is skipped or found twice
+            query = this.createQuery(
+                    this.entityType,
+                    " SELECT    entity "
+                    + " FROM    " + this.getEntityName() + " entity "
+                    + " WHERE   entity.generationDate > ?1"
+                    + " OR      (entity.generationDate = ?1 AND entity.id > ?2)"
+                    + " ORDER BY entity.generationDate, entity.id",
+                    lastGenerationDate,
+                    lastId);
+        }
+        
+        return query.setMaxResults(pageSize).getResultList();
+    }
+    
+    
     /**
      * Merges the specified entity.
      * 
@@ -124,16 +277,24 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
     
     
     /**
-     * Merges all specified entities.
+     * Merges all specified entities. Every time a batch of entities has been
+     * merged, the pending changes are flushed, so that the updates are sent 
+     * as one JDBC batch. The merged entities are not detached, as callers 
+     * keep changing them within the same transaction.
      * 
      * @param   entities            that will be updated.
-     * @return  The updated entities.
+     * @return  The updated entities, which are all managed.
      */
     public final Collection<T> merge(Collection<T> entities) {
         Collection<T> updatedEntities = this.createCollection();
+        int merged = 0;
         
         for(T entity : entities) {
             updatedEntities.add(this.merge(entity));
+            
+            if (++merged % this.batchSize == 0) {
+                this.entityManager.flush();
+            }
         }
         
         return updatedEntities;
@@ -152,13 +313,25 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
     
     
     /**
-     * Persists all specified entities.
+     * Persists all specified entities. Every time a batch of entities has been
+     * persisted, the batch is flushed and detached, so that the inserts are 
+     * sent as one JDBC batch and the persistence context does not grow with 
+     * the number of entities. Entities of the last incomplete batch stay 
+     * managed, all others are detached once the method returns, so that 
+     * later changes to them have to be merged.
      * 
      * @param   entities        that will be saved.
      */
     public final void persist(Collection<T> entities) {     
+        Collection<T> batch = this.createCollection();
+        
         for(T entity : entities) {
             this.persist(entity);
+            batch.add(entity);
+            
+            if (batch.size() >= this.batchSize) {
+                this.flushAndDetach(batch);
+            }
         }
     }
     
@@ -197,18 +370,61 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
     
     // --------------- Protected methods ---------------
     
+    /**
+     * Streams the results of the specified query using a forward only cursor,
+     * so that only the fetched rows are held in memory. Every entity is 
+     * detached once it has been processed by the stream, so the persistence
+     * context does not grow either. The stream has to be closed after it has
+     * been consumed, which closes the cursor.
+     * 
+     * @param   <R>         that specifies the result type of the query.
+     * @param   query       the query whose results will be streamed.
+     * @return  The stream of results.
+     */
+    protected final <R extends Object> Stream<R> stream(TypedQuery<R> query) {
+        ScrollableResults results = query
+                .unwrap(org.hibernate.Query.class)
+                .setFetchSize(this.fetchSize)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        
+        return StreamSupport
+                .stream(new ScrollSpliterator<R>(
+                        this.entityManager.unwrap(Session.class), results), 
+                        false)
+                .onClose(results::close);
+    }
+    
+    
+    /**
+     * Loads the associations of the specified named entity graph along with
+     * the results of the specified query.
+     * 
+     * @param   <R>         that specifies the result type of the query.
+     * @param   query       the query whose results will be loaded.
+     * @param   graphName   the name of the entity graph that will be loaded.
+     * @return  The query using the entity graph.
+     */
+    protected final <R extends Object> TypedQuery<R> useGraph(
+            TypedQuery<R> query,
+            String graphName) {
+        return query.setHint(
+                AbstractRepository.FETCH_GRAPH_HINT,
+                this.entityManager.getEntityGraph(graphName));
+    }
+    
+    
     /**
      * Accesses any named query using the specified result type and query 
      * identifier.
      * 
-     * @param   <S>             that specifies the result type of the query.
+     * @param   <R>             that specifies the result type of the query.
      * @param   resultType      that defines the result type of the query.
      * @param   queryIdentifier that identifies the query within the entity
      *                          manager.
      * @return  The query specified by the identifier.
      */
-    protected final <S extends Object> TypedQuery<S> accessQuery(
-            Class<S> resultType, 
+    protected final <R extends Object> TypedQuery<R> accessQuery(
+            Class<R> resultType, 
             String queryIdentifier) {
         return this.accessQuery(resultType, queryIdentifier, null); 
     }
@@ -218,18 +434,18 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
      * Accesses any named query using the specified result type, query 
      * identifier and parameters.
      * 
-     * @param   <S>             that specifies the result type of the query.
+     * @param   <R>             that specifies the result type of the query.
      * @param   resultType      that defines the result type of the query.
      * @param   queryIdentifier that identifies the query within the entity
      *                          manager.
      * @param   parameters      that are used during the execution of the query.
      * @return  The query specified by the identifier.
      */
-    protected final <S extends Object> TypedQuery<S> accessQuery(
-            Class<S> resultType,
+    protected final <R extends Object> TypedQuery<R> accessQuery(
+            Class<R> resultType,
             String queryIdentifier, 
             Object... parameters) {
-        TypedQuery<S> typedQuery = 
+        TypedQuery<R> typedQuery = 
                 this.entityManager.createNamedQuery(queryIdentifier, resultType);
         
         if(parameters != null && parameters.length > 0)
@@ -239,16 +455,37 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
     }
     
     
+    /**
+     * Executes any named update or delete query using the specified query 
+     * identifier and parameters.
+     * 
+     * @param   queryIdentifier that identifies the query within the entity
+     *                          manager.
+     * @param   parameters      that are used during the execution of the query.
+     * @return  The number of updated or deleted entities.
+     */
+    protected final int executeUpdate(
+            String queryIdentifier, 
+            Object... parameters) {
+        Query query = this.entityManager.createNamedQuery(queryIdentifier);
+        
+        if(parameters != null && parameters.length > 0)
+            this.setQueryParameters(query, parameters);
+        
+        return query.executeUpdate();
+    }
+    
+    
     /**
      * Create a query using the specified result type and query string.
      * 
-     * @param   <S>             that specifies the result type of the query.
+     * @param   <R>             that specifies the result type of the query.
      * @param   resultType      that defines the result type of the query.
      * @param   queryString     that contains the SQL statement.
      * @return  The query specified by the identifier.
      */
-    protected final <S extends Object> TypedQuery<S> createQuery(
-            Class<S> resultType, 
+    protected final <R extends Object> TypedQuery<R> createQuery(
+            Class<R> resultType, 
             String queryString) {
         return this.createQuery(resultType, queryString, null); 
     }
@@ -258,17 +495,17 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
      * Create a query using the specified result type, query string and 
      * parameters.
      * 
-     * @param   <S>             that specifies the result type of the query.
+     * @param   <R>             that specifies the result type of the query.
      * @param   resultType      that defines the result type of the query.
      * @param   queryString     that contains the SQL statement.
      * @param   parameters      that are used during the execution of the query.
      * @return  The query specified by the identifier.
      */
-    protected final <S extends Object> TypedQuery<S> createQuery(
-            Class<S> resultType,
+    protected final <R extends Object> TypedQuery<R> createQuery(
+            Class<R> resultType,
             String queryString, 
             Object... parameters) {
-        TypedQuery<S> typedQuery = 
+        TypedQuery<R> typedQuery = 
                 this.entityManager.createQuery(queryString, resultType);
         
         if(parameters != null && parameters.length > 0)
@@ -291,6 +528,36 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
     // --------------- Private methods ---------------
     
     
+    /**
+     * Gets the name of the managed entity as used within queries.
+     * 
+     * @return  the name of the entity.
+     */
+    private String getEntityName() {
+        return this.entityManager.getMetamodel().entity(this.entityType).getName();
+    }
+    
+    
+    /**
+     * Flushes the pending changes and detaches the specified batch of 
+     * entities. Only the batch is detached instead of clearing the whole
+     * persistence context, because the caller may still be changing other 
+     * managed entities within the same transaction.
+     * 
+     * @param   batch   the entities that will be detached and removed from 
+     *                  the batch.
+     */
+    private void flushAndDetach(Collection<T> batch) {
+        this.entityManager.flush();
+        
+        for (T entity : batch) {
+            this.entityManager.detach(entity);
+        }
+        
+        batch.clear();
+    }
+    
+    
     /**
      * Sets all the parameters on a query.
      * 
@@ -305,4 +572,69 @@ public abstract class AbstractRepository<S, T extends Object & IEntity<S>> {
             parameterPlaceholder++;
         }
     }
+    
+    // --------------- Private classes ---------------
+    
+    /**
+     * Represents the rows of a forward only cursor as a {@link Spliterator}, 
+     * that detaches every row once it has been processed.
+     * 
+     * @param   <R>     that specifies the type of the rows.
+     */
+    private static class ScrollSpliterator<R> 
+            extends Spliterators.AbstractSpliterator<R> {
+        
+        // --------------- Private fields ---------------
+        
+        /**
+         * Stores the session the rows are loaded by.
+         */
+        private final Session session;
+        
+        /**
+         * Stores the cursor over the rows.
+         */
+        private final ScrollableResults results;
+        
+        // --------------- Public constructors ---------------
+        
+        /**
+         * Creates a new instance of {@link ScrollSpliterator} using the 
+         * specified session and cursor.
+         * 
+         * @param   session the session the rows are loaded by.
+         * @param   results the cursor over the rows.
+         */
+        public ScrollSpliterator(Session session, ScrollableResults results) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.session = session;
+            this.results = results;
+        }
+        
+        // --------------- Public methods ---------------
+        
+        /**
+         * Processes the next row of the cursor if there is one.
+         * 
+         * @param   action  the action that processes the row.
+         * @return  {@code true} if a row has been processed, otherwise 
+         *          {@code false}.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super R> action) {
+            if (!this.results.next()) {
+                return false;
+            }
+            
+            R row = (R) this.results.get(0);
+            action.accept(row);
+            
+            if (this.session.contains(row)) {
+                this.session.evict(row);
+            }
+            
+            return true;
+        }
+    }
 }
@@ -100,11 +100,15 @@ public class AccountService implements Serializable, IAccountService {
      * Finds the account that is being identified by the id.
      * 
      * @param       idAsString  the id that defines the entity in text form.
-     * @return      the account.
+     * @return      the account or {@code null} if the text is not a valid id.
      */
     @Override
     public Account find(String idAsString) {
-        return this.accountRepository.find(idAsString);
+        try {
+            return this.accountRepository.find(Long.valueOf(idAsString));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
     }
 
 }
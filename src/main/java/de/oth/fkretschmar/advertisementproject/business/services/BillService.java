@@ -16,36 +16,26 @@
  */
 package de.oth.fkretschmar.advertisementproject.business.services;
 
-import de.oth.fkretschmar.advertisementproject.business.services.web.TransactionFailedException;
-import de.oth.fkretschmar.advertisementproject.business.services.web.TransactionFailureReason;
-import de.oth.fkretschmar.advertisementproject.business.annotation.PayPalTransaction;
-import de.oth.fkretschmar.advertisementproject.business.annotation.BankTransaction;
-import de.oth.fkretschmar.advertisementproject.business.annotation.BillCreated;
-import de.oth.fkretschmar.advertisementproject.business.events.EntityEvent;
-import de.oth.fkretschmar.advertisementproject.business.services.base.ITransactionService;
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+import de.oth.fkretschmar.advertisementproject.business.billing.BillingRunWriter;
+import de.oth.fkretschmar.advertisementproject.business.billing.PaymentDispatcher;
 import de.oth.fkretschmar.advertisementproject.business.repositories.BillItemRepository;
 import de.oth.fkretschmar.advertisementproject.business.repositories.BillRepository;
 import de.oth.fkretschmar.advertisementproject.business.repositories.CampaignRepository;
-import de.oth.fkretschmar.advertisementproject.business.repositories.ContentRequestRepository;
 import de.oth.fkretschmar.advertisementproject.business.services.base.IBillService;
-import de.oth.fkretschmar.advertisementproject.business.services.base.ICampaignService;
 import de.oth.fkretschmar.advertisementproject.entities.billing.BankAccount;
 import de.oth.fkretschmar.advertisementproject.entities.billing.Bill;
 import de.oth.fkretschmar.advertisementproject.entities.billing.BillItem;
-import de.oth.fkretschmar.advertisementproject.entities.billing.ContentRequest;
+import de.oth.fkretschmar.advertisementproject.entities.billing.BillingRun;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.Campaign;
-import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.PaymentInterval;
 import de.oth.fkretschmar.advertisementproject.entities.billing.PayPalAccount;
 
 import java.io.Serializable;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeMap;
 import javax.ejb.Schedule;
 import javax.ejb.Singleton;
-import javax.enterprise.event.Event;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 import org.joda.money.CurrencyUnit;
@@ -62,13 +52,6 @@ public class BillService implements Serializable, IBillService {
 
     // --------------- Private static constants ---------------
     
-    /**
-     * Defines the initial overdue charge if the account which is supposed to pay
-     * a bill has not enough money on it.
-     */
-    private static final Money INITIAL_OVERDUE_CHARGE 
-            = Money.of(CurrencyUnit.EUR, 10);
-    
     /**
      * Defines the own account that is the target for transactions.
      * 
@@ -97,20 +80,6 @@ public class BillService implements Serializable, IBillService {
 
     // --------------- Private fields ---------------
     
-    /**
-     * Stores the sender of the bill created event.
-     */
-    @Inject
-    @BillCreated
-    private Event<EntityEvent<Bill>> billCreatedEventSender;
-    
-    /**
-     * Stores the service used to manage {@link BankAccount} entities.
-     */
-    @Inject
-    @BankTransaction
-    private ITransactionService bankTransactionService;
-
     /**
      * Stores the repository used to manage {@link Bill} entites.
      */
@@ -130,23 +99,23 @@ public class BillService implements Serializable, IBillService {
     private CampaignRepository campaignRepository;
 
     /**
-     * Stores the service used to manage {@link Campaign} entites.
+     * Stores the number of campaigns that are billed within one transaction.
      */
     @Inject
-    private ICampaignService campaignService;
+    @ConfigurationValue(name = "billing.chunkSize", defaultValue = "50")
+    private int chunkSize;
 
     /**
-     * Stores the repositorz used to manage {@link ContentRequest} entities.
+     * Stores the writer that bills the campaigns of a {@link BillingRun}.
      */
     @Inject
-    private ContentRequestRepository contentRequestRepository;
+    private BillingRunWriter billingRunWriter;
 
     /**
-     * Stores the service used to manage {@link PayPalAccount} entities.
+     * Stores the dispatcher that pays for the committed bills.
      */
     @Inject
-    @PayPalTransaction
-    private ITransactionService payPalTransactionService;
+    private PaymentDispatcher paymentDispatcher;
 
     // --------------- Public methods ---------------
     /**
@@ -154,7 +123,7 @@ public class BillService implements Serializable, IBillService {
      * setting up the payment job for campaigns that are payed monthly.
      */
     @Schedule(hour = "*", minute = "*/30", second = "0")
-    @Transactional
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
     public void billMonthlyContentRequests() {
         this.billContentRequests(PaymentInterval.MONTHLY);
     }
@@ -164,7 +133,7 @@ public class BillService implements Serializable, IBillService {
      * setting up the payment job for campaigns that are payed quaterly.
      */
     @Schedule(hour = "*/1", minute = "0", second = "0")
-    @Transactional
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
     public void billQuaterlyContentRequests() {
         this.billContentRequests(PaymentInterval.QUATERLY);
     }
@@ -174,7 +143,7 @@ public class BillService implements Serializable, IBillService {
      * setting up the payment job for campaigns that are payed yearly.
      */
     @Schedule(hour = "*/4", minute = "0", second = "0")
-    @Transactional
+    @TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
     public void billYearlyContentRequests() {
         this.billContentRequests(PaymentInterval.YEARLY);
     }
@@ -215,6 +184,7 @@ public class BillService implements Serializable, IBillService {
     @Transactional
     @Override
     public void deleteBill(Bill bill) {
+        bill = this.billRepository.merge(bill);
         Object[] items = bill.getItems().toArray();
 
         for (int i = 0; i < items.length; i++) {
@@ -228,143 +198,34 @@ public class BillService implements Serializable, IBillService {
         this.billRepository.remove(bill);
     }
 
+    /**
+     * Finds the {@link Bill} with the specified id including its items.
+     *
+     * @param id the id of the bill.
+     * @return the bill with its items.
+     */
+    @Override
+    public Bill findBillWithItems(Long id) {
+        return this.billRepository.find(id, Bill.GRAPH_DETAIL);
+    }
+
     // --------------- Private methods ---------------
     /**
      * Performs the work of billing the latest set of content requests and
-     * setting up the payment job for the specified payment interval.
+     * setting up the payment job for the specified payment interval. The
+     * campaigns are billed in chunks that are committed one after the other,
+     * so that an interrupted run is resumed by the next one. The bills of a
+     * chunk are paid from the payment outbox after the chunk has been 
+     * committed.
      *
      * @param interval the interval.
      */
-    @Transactional
     private void billContentRequests(PaymentInterval interval) {
-        // finds all requests that have been made since the last interval and 
-        // that have the specified pazment interval
-        Collection<ContentRequest> requests
-                = this.contentRequestRepository.findForPaymentInterval(interval);
-
-        Map<Long, Bill> bills = new TreeMap<Long, Bill>();
-        Map<Long, Campaign> campaigns = new TreeMap<Long, Campaign>();
-        Map<Long, Map<String, BillItem>> billItemMaps = new TreeMap<Long, Map<String, BillItem>>();
-
-        if (requests != null && requests.size() > 0) {
-            for (ContentRequest request : requests) {
-                Content content = request.getContent();
-                Campaign campaign = content.getCampaign();
-                
-
-                // 1.   find out whether or not a bill has already been created for 
-                //      the campaign that this request is bound to...
-                Bill bill = null;
-                if (bills.containsKey(campaign.getId())) {
-                    //... and get the bill as well as the corresponding bill items
-                    // if the bill already exists
-                    bill = bills.get(campaign.getId());
-                    Map<String, BillItem> billItems = billItemMaps.get(campaign.getId());
-
-                    // 2.   if a bill already exists, find out whether or not there
-                    //      is already a corresponding bill item to the content of
-                    //      this request
-                    BillItem billItem = null;
-                    if (billItems.containsKey(content.getId())) {
-                        // A corresponding bill item already exists so get it...
-                        billItem = billItems.get(content.getId());
-
-                        // ... add the additional request ...
-                        billItem = BillItem.createBillItem()
-                                .content(content)
-                                .contentRequests(billItem.getContentRequests() + 1)
-                                .build();
-
-                        // ... and replace the old item.
-                        billItems.replace(content.getId(), billItem);
-                    } else {
-                        // No corresponding bill item exists so just create a new
-                        // one and add it to the bill.
-                        billItem = BillItem.createBillItem()
-                                .content(content)
-                                .contentRequests(1)
-                                .build();
-                        billItems.put(content.getId(), billItem);
-                    }
-
-                    // replace the found bill with the changed bill
-                    bills.replace(campaign.getId(), bill);
-                } else {
-                    // 3.   If a bill does not exist already, just create a new one,
-                    //      create a map for the bill items, add a bill item for 
-                    //      this change request and store it in the map.
-                    Map<String, BillItem> billItems = new HashMap<>();
-                    BillItem billItem = BillItem.createBillItem()
-                            .content(content)
-                            .contentRequests(1)
-                            .build();
-                    billItems.put(content.getId(), billItem);
-                    billItemMaps.put(campaign.getId(), billItems);
-
-                    bill = Bill.createBill().build();
-                    bills.put(campaign.getId(), bill);
-
-                    campaigns.put(campaign.getId(), campaign);
-                }
-            }
-
-            bills.forEach((campaignId, bill)
-                    -> {
-                // Add all corresponding bill items to the bill...
-                Map<String, BillItem> billItems = billItemMaps.get(campaignId);
-                billItems.values().forEach(billItem -> bill.addItem(billItem));
-
-                // ... create each bill for its existing campaign...
-                Campaign campaign = this.createBillForCampaign(
-                        campaigns.get(campaignId), bill);
-                // ... inform the current user, that the campaign has changed...
-                this.campaignService.changeCampaignForUser(
-                        campaign.getComissioner(),
-                        campaign);
-
-                try {
-                    // ... and actually pay for the bill.
-                    if (campaign.getPaymentAccount() instanceof PayPalAccount) {
-                        this.payPalTransactionService.transfer(
-                                bill.getTotalPrice(),
-                                campaign.getPaymentAccount(),
-                                BillService.OWN_PAYPAL_ACCOUNT,
-                                String.format(
-                                        "Payment for bill %s of campaign %s",
-                                        bill.getId(),
-                                        campaign.getId()));
-                    } else if (campaign.getPaymentAccount() instanceof BankAccount) {
-                        this.bankTransactionService.transfer(
-                                bill.getTotalPrice(),
-                                campaign.getPaymentAccount(),
-                                BillService.OWN_BANK_ACCOUNT,
-                                String.format(
-                                        "Payment for bill %s of campaign %s",
-                                        bill.getId(),
-                                        campaign.getId()));
-                    }
-                } catch (TransactionFailedException ex) {
-                    if (ex.getReason() == TransactionFailureReason.SENDER_OUT_OF_MONEY) {
-                        bill.setOverdue(true);
-                        bill.setOverdueCharge(BillService.INITIAL_OVERDUE_CHARGE);
-                    }
-                }
-            });
-            
-            for (Bill bill : bills.values()) {
-                this.billCreatedEventSender.fire(new EntityEvent<Bill>(bill));
-            }
-
-            // Set the corresponding bill on the requests so next time around the
-            // paid requests are not loaded.
-            requests.forEach(request
-                    -> {
-                ContentRequest mergedRequest
-                        = this.contentRequestRepository.merge(request);
-
-                long campaignId = mergedRequest.getContent().getCampaign().getId();
-                mergedRequest.setBill(bills.get(campaignId));
-            });
+        long runId = this.billingRunWriter.startRun(interval);
+        
+        // every chunk is committed before its payments are dispatched
+        while (this.billingRunWriter.billNextChunk(runId, this.chunkSize)) {
+            this.paymentDispatcher.dispatchDuePayments();
         }
     }
 }
@@ -16,6 +16,8 @@
  */
 package de.oth.fkretschmar.advertisementproject.business.services;
 
+import de.oth.fkretschmar.advertisementproject.business.annotation.ContentChanged;
+import de.oth.fkretschmar.advertisementproject.business.events.EntityEvent;
 import de.oth.fkretschmar.advertisementproject.business.repositories.CampaignRepository;
 import de.oth.fkretschmar.advertisementproject.business.repositories.UserRepository;
 import de.oth.fkretschmar.advertisementproject.business.services.base.ICampaignService;
@@ -29,6 +31,7 @@ import de.oth.fkretschmar.advertisementproject.entities.user.User;
 import java.io.Serializable;
 
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 
@@ -49,6 +52,13 @@ public class CampaignService implements Serializable, ICampaignService {
     @Inject
     private CampaignRepository campaignRepository;
 
+    /**
+     * Stores the sender of the content changed event.
+     */
+    @Inject
+    @ContentChanged
+    private Event<EntityEvent<Content>> contentChangedEventSender;
+
     /**
      * Stores the service used to manage {@link Content} entites.
      */
@@ -138,6 +148,7 @@ public class CampaignService implements Serializable, ICampaignService {
     public Campaign cancelCampaign(Campaign campaign) {        
         campaign = this.campaignRepository.merge(campaign);
         campaign.setCampaignState(CampaignState.CANCELLED);
+        this.fireContentsChanged(campaign);
         return campaign;
     }
     
@@ -153,12 +164,26 @@ public class CampaignService implements Serializable, ICampaignService {
     public Campaign endCampaign(Campaign campaign) {
         campaign = this.campaignRepository.merge(campaign);
         campaign.setCampaignState(CampaignState.ENDED);
+        this.fireContentsChanged(campaign);
         return campaign;
     }
 
     // --------------- Private methods ---------------
     
     
+    /**
+     * Informs everyone interested that the contents of the specified campaign
+     * have changed because the state of the campaign changed.
+     * 
+     * @param campaign  whose contents have changed.
+     */
+    private void fireContentsChanged(Campaign campaign) {
+        campaign.getContents().forEach(content -> 
+                this.contentChangedEventSender.fire(
+                        new EntityEvent<Content>(content)));
+    }
+    
+    
 //    /**
 //     * Deletes all campaign contents form the specified campaign.
 //     * @param campaign 
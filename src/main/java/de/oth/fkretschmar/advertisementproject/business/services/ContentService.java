@@ -16,6 +16,8 @@
  */
 package de.oth.fkretschmar.advertisementproject.business.services;
 
+import de.oth.fkretschmar.advertisementproject.business.annotation.ContentChanged;
+import de.oth.fkretschmar.advertisementproject.business.events.EntityEvent;
 import de.oth.fkretschmar.advertisementproject.business.repositories.CampaignRepository;
 import de.oth.fkretschmar.advertisementproject.business.repositories.ContentRepository;
 import de.oth.fkretschmar.advertisementproject.business.repositories.TargetContextRepository;
@@ -26,6 +28,7 @@ import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetContext;
 
 import java.io.Serializable;
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.transaction.Transactional;
 
@@ -44,6 +47,14 @@ public class ContentService implements Serializable, IContentService {
      */
     @Inject
     private CampaignRepository campaignRepository;
+
+    /**
+     * Stores the sender of the content changed event.
+     */
+    @Inject
+    @ContentChanged
+    private Event<EntityEvent<Content>> contentChangedEventSender;
+
     /**
      * Stores the repository used to manage {@link Content} entites.
      */
@@ -70,6 +81,9 @@ public class ContentService implements Serializable, IContentService {
 
         // 2. Persist the content
         this.contentRepository.persist(content);
+
+        // 3. Inform everyone interested that a new content is available
+        this.contentChangedEventSender.fire(new EntityEvent<Content>(content));
     }
 
 //    /**
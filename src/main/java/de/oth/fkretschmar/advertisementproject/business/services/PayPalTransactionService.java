@@ -21,7 +21,7 @@ import de.oth.fkretschmar.advertisementproject.business.annotation.PayPalTransac
 import de.oth.fkretschmar.advertisementproject.business.services.base.ITransactionService;
 import de.oth.fkretschmar.advertisementproject.entities.billing.Account;
 import java.util.logging.Logger;
-import javax.enterprise.context.RequestScoped;
+import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import org.joda.money.Money;
 
@@ -30,7 +30,7 @@ import org.joda.money.Money;
  * @author Admin
  */
 @PayPalTransaction
-@RequestScoped
+@ApplicationScoped
 public class PayPalTransactionService implements ITransactionService {
 
     // --------------- Private fields ---------------
@@ -45,26 +45,31 @@ public class PayPalTransactionService implements ITransactionService {
     
     /**
      * Transfers the specified amount from the sender to the recipient using the
-     * specified transaction reason.
+     * specified transaction reason. The idempotency key identifies the 
+     * transaction, but the provider does not necessarily prevent a repeated 
+     * call with the same key from being executed twice.
      *
-     * @param   amount      the amount that will be transfered.
-     * @param   sender      the sender of the transaction.
-     * @param   recipient   the recipient of the transaction.
-     * @param   description the description explaining the reason for the
+     * @param   idempotencyKey  the key that identifies the transaction.
+     * @param   amount          the amount that will be transfered.
+     * @param   sender          the sender of the transaction.
+     * @param   recipient       the recipient of the transaction.
+     * @param   description     the description explaining the reason for the
      * transaction.
      * @throws TransactionFailedException   that indicates that the transaction
      *                                      has not been successfull.
      */
     @Override
     public void transfer(
+            String idempotencyKey,
             Money amount,
             Account sender, 
             Account recipient,
             String description) throws TransactionFailedException {
         this.logger.info(
                 String.format(
-                        "Here could be a pay pal transaction of %s amount "
+                        "Here could be the pay pal transaction %s of %s amount "
                         + "from the account %s to the account %s.", 
+                        idempotencyKey,
                         amount.toString(),
                         sender.toString(),
                         recipient.toString()));
@@ -17,6 +17,7 @@
 package de.oth.fkretschmar.advertisementproject.business.services;
 
 import de.oth.fkretschmar.advertisementproject.business.repositories.AccountRepository;
+import de.oth.fkretschmar.advertisementproject.business.repositories.CampaignRepository;
 import de.oth.fkretschmar.advertisementproject.business.repositories.UserRepository;
 import de.oth.fkretschmar.advertisementproject.business.services.base.IAccountService;
 import de.oth.fkretschmar.advertisementproject.business.services.base.ICampaignService;
@@ -57,6 +58,12 @@ public class UserService implements Serializable, IUserService {
     @Inject
     private IAccountService accountService;
 
+    /**
+     * Stores the repository used to manage {@link Campaign} entities.
+     */
+    @Inject
+    private CampaignRepository campaignRepository;
+
     /**
      * Stores the repository used to manage {@link Campaign} entities.
      */
@@ -84,7 +91,9 @@ public class UserService implements Serializable, IUserService {
     @Override
     public User authenticateUser(
             String eMail, char[] password) throws UserServiceException {
-        User user = this.userRepository.find(eMail);
+        // only the user itself is needed to check the password, its 
+        // campaigns are loaded once it is displayed
+        User user = this.userRepository.find(eMail, User.GRAPH_LOGIN);
 
         if (user == null || !PasswordService.equals(user.getPassword(), password)) {
             throw new UserServiceException("The user was not found.");
@@ -233,13 +242,50 @@ public class UserService implements Serializable, IUserService {
     }
 
     /**
-     * Finds an {@link User} using the unique e-mail address.
+     * Finds an {@link User} using the unique e-mail address without any of 
+     * its accounts or campaigns.
      *
      * @param idAsString the id that defines the entity in text form.
      * @return the user with the specified e-mail address.
      */
     @Override
     public User find(String idAsString) {
-        return this.userRepository.find(idAsString);
+        return this.userRepository.find(idAsString, User.GRAPH_LOGIN);
+    }
+
+    /**
+     * Finds an {@link User} using the unique e-mail address along with its 
+     * accounts but without its campaigns.
+     *
+     * @param idAsString the id that defines the entity in text form.
+     * @return the user with the specified e-mail address.
+     */
+    @Override
+    public User findWithAccounts(String idAsString) {
+        return this.userRepository.find(idAsString, User.GRAPH_ACCOUNTS);
+    }
+
+    /**
+     * Finds an {@link User} using the unique e-mail address. The accounts, 
+     * the campaigns as well as the contents and bills of the campaigns are 
+     * loaded along with the user, the items of the bills are not.
+     *
+     * @param idAsString the id that defines the entity in text form.
+     * @return the user with the specified e-mail address.
+     */
+    @Transactional
+    @Override
+    public User findWithCampaigns(String idAsString) {
+        User user = this.userRepository.find(idAsString, User.GRAPH_OVERVIEW);
+        
+        if (user != null) {
+            // the bills are loaded with a query of their own instead of 
+            // joining them next to the contents, which would multiply the 
+            // rows: the campaigns are already managed, so the query only 
+            // fills in their bills
+            this.campaignRepository.findWithBillsForComissioner(user.getId());
+        }
+        
+        return user;
     }
 }
@@ -42,4 +42,13 @@ public interface IBillService {
      * @param   bill    that will be deleted.
      */
     public void deleteBill(Bill bill);
+    
+    
+    /**
+     * Finds the {@link Bill} with the specified id including its items.
+     * 
+     * @param   id  the id of the bill.
+     * @return      the bill with its items.
+     */
+    public Bill findBillWithItems(Long id);
 }
@@ -28,17 +28,21 @@ public interface ITransactionService {
     
     /**
      * Transfers the specified amount from the sender to the recipient using the
-     * specified transaction reason.
+     * specified transaction reason. The idempotency key identifies the 
+     * transaction, but the provider does not necessarily prevent a repeated 
+     * call with the same key from being executed twice.
      *
-     * @param   amount      the amount that will be transfered.
-     * @param   sender      the sender of the transaction.
-     * @param   recipient   the recipient of the transaction.
-     * @param   description the description explaining the reason for the
+     * @param   idempotencyKey  the key that identifies the transaction.
+     * @param   amount          the amount that will be transfered.
+     * @param   sender          the sender of the transaction.
+     * @param   recipient       the recipient of the transaction.
+     * @param   description     the description explaining the reason for the
      * transaction.
      * @throws TransactionFailedException   that indicates that the transaction
      *                                      has not been successfull.
      */
     public void transfer(
+            String idempotencyKey,
             Money amount,
             Account sender,
             Account recipient,
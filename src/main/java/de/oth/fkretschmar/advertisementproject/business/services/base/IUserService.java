@@ -84,6 +84,25 @@ public interface IUserService extends IEntityService<User> {
     public void deleteUser(User user);
     
     
+    /**
+     * Finds the {@link User} with the specified id along with its accounts.
+     * 
+     * @param   idAsString  the id that defines the user in text form.
+     * @return  the user or {@code null} if it does not exist.
+     */
+    public User findWithAccounts(String idAsString);
+    
+    
+    /**
+     * Finds the {@link User} with the specified id along with its accounts,
+     * its campaigns as well as the contents and bills of the campaigns.
+     * 
+     * @param   idAsString  the id that defines the user in text form.
+     * @return  the user or {@code null} if it does not exist.
+     */
+    public User findWithCampaigns(String idAsString);
+    
+    
 //    /**
 //     * Finds an {@link User} using the unique e-mail address.
 //     * 
@@ -18,16 +18,18 @@ package de.oth.fkretschmar.advertisementproject.business.services.web;
 
 import de.jreichl.service.web.ITransactionWS;
 import de.jreichl.service.web.TransactionFailedException_Exception;
-import de.jreichl.service.web.TransactionWSService;
 import de.oth.fkretschmar.advertisementproject.business.annotation.BankTransaction;
 import de.oth.fkretschmar.advertisementproject.business.services.base.ITransactionService;
 import de.oth.fkretschmar.advertisementproject.entities.billing.Account;
 import de.oth.fkretschmar.advertisementproject.entities.billing.BankAccount;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
 import java.util.logging.Logger;
-import javax.enterprise.context.RequestScoped;
+import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.xml.ws.WebServiceException;
-import javax.xml.ws.WebServiceRef;
 import org.joda.money.Money;
 
 /**
@@ -35,7 +37,7 @@ import org.joda.money.Money;
  * @author Admin
  */
 @BankTransaction
-@RequestScoped
+@ApplicationScoped
 public class BankTransactionService implements ITransactionService {
 
     // --------------- Private fields ---------------
@@ -47,42 +49,68 @@ public class BankTransactionService implements ITransactionService {
     private Logger logger;
 
     /**
-     * Stores the transaction service used to execute the transaction.
+     * Stores the pool of the ports used to execute the transaction.
      */
-    @WebServiceRef(wsdlLocation = "WEB-INF/wsdl/im-lamport_8080/BankReichl/TransactionWS.wsdl")
-    private TransactionWSService service;
+    @Inject
+    private TransactionPortPool portPool;
 
     // --------------- Public methods ---------------
 
     /**
      * Transfers the specified amount from the sender to the recipient using the
-     * specified transaction reason.
+     * specified transaction reason. The idempotency key identifies the 
+     * transaction, but the provider does not necessarily prevent a repeated 
+     * call with the same key from being executed twice.
      *
-     * @param   amount      the amount that will be transfered.
-     * @param   sender      the sender of the transaction.
-     * @param   recipient   the recipient of the transaction.
-     * @param   description the description explaining the reason for the
+     * @param   idempotencyKey  the key that identifies the transaction.
+     * @param   amount          the amount that will be transfered.
+     * @param   sender          the sender of the transaction.
+     * @param   recipient       the recipient of the transaction.
+     * @param   description     the description explaining the reason for the
      * transaction.
      * @throws TransactionFailedException   that indicates that the transaction
      *                                      has not been successfull.
      */
     @Override
     public void transfer(
+            String idempotencyKey,
             Money amount,
             Account sender,
             Account recipient,
             String description) throws TransactionFailedException {
         if (sender instanceof BankAccount && recipient instanceof BankAccount) {
+            ITransactionWS port;
+            
+            try {
+                port = this.portPool.borrow();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                port = null;
+            }
+            
+            if (port == null) {
+                throw new TransactionFailedException(
+                        "No port of the bank webservice is available.", 
+                        TransactionFailureReason.SERVICE_UNAVAILABLE);
+            }
+            
+            boolean result;
+            
             try {
-                    ITransactionWS port = service.getTransactionWSPort();
-                    // TODO process result here
-                    boolean result = port.transfer(
+                    result = port.transfer(
                             amount.getAmountMinorLong(), 
                             ((BankAccount)sender).getIban(), 
                             ((BankAccount)recipient).getIban(), 
-                            description);
+                            // the bank has no field for the key, so it is
+                            // part of the reason of the transfer
+                            String.format(
+                                    "%s [%s]", description, idempotencyKey));
 
+                    this.portPool.release(port);
             } catch (TransactionFailedException_Exception ex) {
+                // the bank answered, so the port is still healthy
+                this.portPool.release(port);
+
                 // TODO: find better way of determining the failure reason
                 if (ex.getFaultInfo().getMessage().contains("Nicht genügend Geld")) {
                     throw new TransactionFailedException(
@@ -105,12 +133,74 @@ public class BankTransactionService implements ITransactionService {
                             ex.getFaultInfo().getMessage(), 
                             TransactionFailureReason.RECIPIENT_NOT_VALID);
                 }
+                
+                throw new TransactionFailedException(
+                        ex.getFaultInfo().getMessage(), 
+                        TransactionFailureReason.UNKNOWN);
             } catch (WebServiceException ex) {
-                this.logger.severe(String.format("The payment \"%s\" failed because the "
-                        + "webservice was unavailable.", description));
+                this.portPool.invalidate(port);
+                
+                if (!BankTransactionService.isSent(ex)) {
+                    this.logger.warning(String.format("The payment \"%s\" failed because the "
+                            + "webservice was unavailable.", description));
+                    throw new TransactionFailedException(
+                            ex.getMessage(), 
+                            TransactionFailureReason.SERVICE_UNAVAILABLE);
+                }
+                
+                this.logger.warning(String.format("The outcome of the payment "
+                        + "\"%s\" is unknown because the webservice did not "
+                        + "answer.", description));
+                throw new TransactionFailedException(
+                        ex.getMessage(), 
+                        TransactionFailureReason.OUTCOME_UNKNOWN);
+            } catch (RuntimeException ex) {
+                this.portPool.invalidate(port);
+                throw ex;
+            }
+            
+            if (!result) {
+                throw new TransactionFailedException(
+                        "The bank did not execute the transfer.", 
+                        TransactionFailureReason.UNKNOWN);
             }
+        } else {
+            throw new TransactionFailedException(
+                    "Only bank accounts can take part in a bank transfer.", 
+                    TransactionFailureReason.SENDER_NOT_VALID);
         }
 
     }
+    
+    // --------------- Private static methods ---------------
+    
+    /**
+     * Determines whether the request that failed with the specified exception
+     * might have reached the bank. Only a connection that could not be 
+     * established proves that the request has not been sent.
+     * 
+     * @param   ex  the exception that the request failed with.
+     * @return  {@code true} if the request might have reached the bank, 
+     *          otherwise {@code false}.
+     */
+    private static boolean isSent(WebServiceException ex) {
+        for (Throwable cause = ex.getCause(); 
+                cause != null; 
+                cause = cause.getCause()) {
+            if (cause instanceof ConnectException 
+                    || cause instanceof NoRouteToHostException
+                    || cause instanceof UnknownHostException) {
+                return false;
+            }
+            
+            if (cause instanceof SocketTimeoutException 
+                    && cause.getMessage() != null
+                    && cause.getMessage().contains("connect")) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
 
 }
@@ -17,12 +17,13 @@
 package de.oth.fkretschmar.advertisementproject.business.services.web;
 
 import de.oth.fkretschmar.advertisementproject.business.services.*;
-import de.oth.fkretschmar.advertisementproject.business.annotation.ContentChanged;
-import de.oth.fkretschmar.advertisementproject.business.events.EntityEvent;
-import de.oth.fkretschmar.advertisementproject.business.repositories.ContentRepository;
-import de.oth.fkretschmar.advertisementproject.business.repositories.ContentRequestRepository;
-import de.oth.fkretschmar.advertisementproject.business.repositories.TargetContextRepository;
-import de.oth.fkretschmar.advertisementproject.entities.campaign.Campaign;
+import de.oth.fkretschmar.advertisementproject.business.serving.BudgetLedger;
+import de.oth.fkretschmar.advertisementproject.business.serving.Impression;
+import de.oth.fkretschmar.advertisementproject.business.serving.ImpressionWriter;
+import de.oth.fkretschmar.advertisementproject.business.serving.MatchingContent;
+import de.oth.fkretschmar.advertisementproject.business.serving.RenderedContent;
+import de.oth.fkretschmar.advertisementproject.business.serving.ResponseCache;
+import de.oth.fkretschmar.advertisementproject.business.serving.TargetingIndex;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
 import de.oth.fkretschmar.advertisementproject.entities.billing.ContentRequest;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.ContentFormat;
@@ -31,25 +32,15 @@ import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetContext;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.TextContentValue;
 
 import java.io.Serializable;
-import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
-import java.util.Optional;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.ListIterator;
+import java.util.concurrent.RejectedExecutionException;
 
-import javax.enterprise.context.RequestScoped;
-import javax.enterprise.event.Event;
+import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Default;
 import javax.inject.Inject;
-import javax.transaction.Transactional;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import org.joda.money.Money;
-import org.joda.money.format.MoneyFormatter;
-import org.joda.money.format.MoneyFormatterBuilder;
 
 /**
  * The service that offers functionality relatetd to the generation and
@@ -57,41 +48,36 @@ import org.joda.money.format.MoneyFormatterBuilder;
  *
  * @author fkre Floyd Kretschmar
  */
-@RequestScoped
+@ApplicationScoped
 @Default
 public class ContentProviderService implements Serializable, IContentProviderService {
 
     // --------------- Private fields ---------------
     /**
-     * Stores the service used to manage {@link Campaign} entites.
+     * Stores the ledger used to consume the requests of the served contents.
      */
     @Inject
-    private CampaignService campaignService;
+    private BudgetLedger budgetLedger;
 
     /**
-     * Stores the sender of the content changed event.
+     * Stores the writer used to log the served contents as 
+     * {@link ContentRequest} entities.
      */
     @Inject
-    @ContentChanged
-    private Event<EntityEvent<Content>> contentChangedEventSender;
+    private ImpressionWriter impressionWriter;
 
     /**
-     * Stores the repository used to manage {@link Content} entites.
+     * Stores the cache of the rendered responses of the served contents.
      */
     @Inject
-    private ContentRepository contentRepository;
+    private ResponseCache responseCache;
 
     /**
-     * Stores the repositorz used to manage {@link ContentRequest} entities.
-     */
-    @Inject
-    private ContentRequestRepository contentRequestRepository;
-
-    /**
-     * Stores the repository used to manage {@link TargetContext} entites.
+     * Stores the index used to find the contents matching a 
+     * {@link TargetContext}.
      */
     @Inject
-    private TargetContextRepository contextRepository;
+    private TargetingIndex targetingIndex;
 
     // --------------- Public methods ---------------
     
@@ -102,180 +88,209 @@ public class ContentProviderService implements Serializable, IContentProviderSer
      * @param source that requested the content.
      * @param format the format of the content.
      * @param context the target context of the request.
-     * @return the best matching content.
+     * @return the rendered response of the best matching content.
      */
-    @Transactional
     @Override
-    public ContentRequestResult requestContent(
+    public RenderedContent requestContent(
             String source,
             ContentFormat format,
             TargetContext context) {
-        
-        List<Object[]> results = this.contentRepository.findMatchingContents(context, format);
+        MatchingContent bestContent
+                = this.targetingIndex.selectContent(context, format);
 
-        // if no fitting content has been found, send null
-        if (results == null || results.isEmpty())
+        if (bestContent == null 
+                || !this.consumeRequest(source, bestContent.getContentId(), false))
             return null;
 
-        List<MatchingContent> matchingContents = new ArrayList<MatchingContent>();
+        return this.renderContent(bestContent.getContentId());
+    }
+
+    /**
+     * Retrieves a random advertisement that has not been matched with any
+     * target context.
+     *
+     * @param source the text that identifies the source of the request.
+     * @param format the format that the content is supposed to have.
+     * @return the rendered response of the content that has been chosen 
+     * randomly.
+     */
+    @Override
+    public RenderedContent requestUntargetedContent(
+            String source, ContentFormat format) {
+        Long contentId = this.targetingIndex.selectRandomContent(format);
+
+        if (contentId == null || !this.consumeRequest(source, contentId, false))
+            return null;
 
-        MoneyFormatterBuilder formaterBuilder = new MoneyFormatterBuilder().appendAmount().appendCurrencyCode();
-        MoneyFormatter formater = formaterBuilder.toFormatter(Locale.GERMANY);
-        results.forEach(result -> matchingContents.add(
-                new MatchingContent(
-                        (String) result[0],
-                        formater.parseMoney((String) result[1]),
-                        ((BigInteger) result[2]).intValue(),
-                        ((BigDecimal) result[3]).intValue()
-                )));
+        return this.renderContent(contentId);
+    }
 
+    /**
+     * Selects the advertisement content that best matches the provided
+     * {@link TargetContext} and records the impression without accessing
+     * the database.
+     *
+     * @param source that requested the content.
+     * @param format the format of the content.
+     * @param context the target context of the request.
+     * @return the id of the best matching content or {@code null} if no
+     * content can be served.
+     * @throws RejectedExecutionException if the impression cannot be 
+     * recorded right now because the buffer of the impressions is full.
+     */
+    @Override
+    public Long serveContent(
+            String source,
+            ContentFormat format,
+            TargetContext context) {
+        
         // don't just deliver the best matching content but also take into 
         // account the amount of money being paid per content as well as a 
         // little bit of random chance ;)
-        Optional<MatchingContent> bestContent = matchingContents.stream().sorted(
-                (content1, content2)
-                -> {
-            // mix the number of matches with the amount of money they pay
-            double compareValue1 = Math.multiplyExact(
-                    Math.multiplyExact(
-                            content1.groupMatches,
-                            content1.machtesInGroup),
-                    content1.getPricePerRequest().getAmountMinorInt());
-            double compareValue2 = Math.multiplyExact(
-                    Math.multiplyExact(
-                            content2.groupMatches,
-                            content2.machtesInGroup),
-                    content2.getPricePerRequest().getAmountMinorInt());
-
-            // build the ratio of the first value to the sum(of both value) * 100
-            // Delivers a upper border between 1 and 100 that indicates how high
-            // the percentage should be, that content 1 is chosen.
-            int upperBoarderOfcv1 = (int) ((compareValue1 / (compareValue1 + compareValue2)) * 100);
-
-            // pics a value between 1 and 100:  if pickedVal < upper border = cv1
-            //                                  if pickedVal > upper border = cv2                                
-            int pickedValue = ThreadLocalRandom.current().nextInt(1, 100);
-            return Double.compare(pickedValue, upperBoarderOfcv1);
-        }).findFirst();
-
-        if (bestContent.isPresent()) {
-            Content content = this.contentRepository.find(bestContent.get().getContentId());
-            this.createContentRequest(source, content);
-            return ContentRequestResult.createContentDTO()
-                    .format(content.getFormat())
-                    .targetPage(content.getTargetUrl())
-                    .type(content.getContentType())
-                    .value(content.getValue()).build();
+        MatchingContent bestContent
+                = this.targetingIndex.selectContent(context, format);
 
-        }
+        // if no fitting content has been found, send null
+        if (bestContent == null)
+            return null;
+
+        if (!this.consumeRequest(source, bestContent.getContentId(), true))
+            return null;
 
-        return null;
+        return bestContent.getContentId();
     }
 
     /**
-     * Retrieves a random advertisement that has not been matched with any
-     * target context.
+     * Selects a random advertisement that has not been matched with any
+     * target context and records the impression without accessing the 
+     * database.
      *
      * @param source the text that identifies the source of the request.
      * @param format the format that the content is supposed to have.
-     * @return the content that has been chosen randomly.
+     * @return the id of the content that has been chosen randomly or 
+     * {@code null} if no content can be served.
+     * @throws RejectedExecutionException if the impression cannot be 
+     * recorded right now because the buffer of the impressions is full.
      */
-    @Transactional
     @Override
-    public ContentRequestResult requestUntargetedContent(
-            String source, ContentFormat format) {
-        Optional<Content> randomContent
-                = this.contentRepository.findRandomContent(format);
-
-        if (randomContent.isPresent()) {
-            Content content = randomContent.get();
-
-            this.createContentRequest(source, content);
-            return ContentRequestResult.createContentDTO()
-                    .format(content.getFormat())
-                    .targetPage(content.getTargetUrl())
-                    .type(content.getContentType())
-                    .value(content.getValue()).build();
-        }
+    public Long serveUntargetedContent(String source, ContentFormat format) {
+        Long contentId = this.targetingIndex.selectRandomContent(format);
 
-        return null;
+        if (contentId == null || !this.consumeRequest(source, contentId, true))
+            return null;
+
+        return contentId;
     }
 
-    // --------------- Private methods ---------------
-    
     /**
-     * Creates a content request for the specified content and source.
+     * Withdraws a content that has been served but could not be delivered.
+     * The consumed request is given back and the impression is removed if it
+     * has not been written yet.
      *
      * @param source the text that identifies the source of the request.
-     * @param content the content that was requested.
+     * @param contentId the id of the content that has been served.
+     * @return {@code true} if the impression has been removed, {@code false}
+     * if it has already been written.
      */
-    @Transactional
-    private void createContentRequest(String source, Content content) {
-        this.contextRepository.merge(content.getContext());
-        this.contentRepository.merge(content);
-
-        // remove one from the number of requests of this specific content
-        content.setNumberOfRequests(content.getNumberOfRequests() - 1);
-        this.contentChangedEventSender.fire(new EntityEvent<Content>(content));
-
-        // if the number of requests on this content are depleted 
-        // -> make sure the campaign still has a non depleted content
-        // -> if not: end campaign
-        if (content.getNumberOfRequests() == 0) {
-            boolean campaignHasRunningContent = false;
-
-            for (Content campaignContent : content.getCampaign().getContents()) {
-                if (campaignContent.getNumberOfRequests() > 0) {
-                    campaignHasRunningContent = true;
-                    break;
-                }
-            }
+    @Override
+    public boolean withdrawContent(String source, Long contentId) {
+        this.budgetLedger.release(contentId);
+        
+        return this.impressionWriter.withdraw(new Impression(contentId, source));
+    }
 
-            if (!campaignHasRunningContent) {
-                this.campaignService.endCampaign(content.getCampaign());
+    /**
+     * Retrieves one advertisement content for each of the specified slots of
+     * a page. All slots are resolved at once and their impressions are 
+     * recorded together.
+     *
+     * @param source that requested the contents.
+     * @param slots the slots for which contents are requested.
+     * @param distinct {@code true} if a content may only be served once on 
+     * the page, otherwise {@code false}.
+     * @return the rendered responses in the order of the slots, containing
+     * {@code null} for every slot without a matching content.
+     */
+    @Override
+    public List<RenderedContent> requestContents(
+            String source, List<ContentSlot> slots, boolean distinct) {
+        List<Long> contentIds
+                = this.targetingIndex.selectContents(slots, distinct);
+        List<Impression> impressions = new ArrayList<Impression>();
+
+        for (ListIterator<Long> iterator = contentIds.listIterator(); 
+                iterator.hasNext();) {
+            Long contentId = iterator.next();
+
+            if (contentId != null) {
+                if (this.budgetLedger.tryConsume(contentId))
+                    impressions.add(new Impression(contentId, source));
+                else
+                    iterator.set(null);
             }
         }
 
-        ContentRequest request = ContentRequest.createContentRequestLog()
-                .content(content)
-                .requestSource(source).build();
-        this.contentRequestRepository.persist(request);
+        if (!this.impressionWriter.recordAll(impressions)) {
+            impressions.forEach(impression -> 
+                    this.budgetLedger.release(impression.getContentId()));
+            contentIds.replaceAll(contentId -> null);
+        }
+
+        List<RenderedContent> responses 
+                = new ArrayList<RenderedContent>(contentIds.size());
+        contentIds.forEach(contentId -> 
+                responses.add(this.renderContent(contentId)));
+
+        return responses;
     }
+
+    // --------------- Private methods ---------------
     
-    // --------------- Private classes ---------------
-    
     /**
-     * Represents a content that matches the provided {@link TargetContext}.
+     * Gets the rendered response of the content with the specified id.
+     *
+     * @param contentId the id of the content or {@code null}.
+     * @return the rendered response or {@code null} if no id has been 
+     * specified.
+     */
+    private RenderedContent renderContent(Long contentId) {
+        return contentId == null ? null : this.responseCache.get(contentId);
+    }
+
+    /**
+     * Consumes one request of the specified content and records the 
+     * impression for the specified source. An asynchronous request never 
+     * waits for the impression buffer to be flushed but is rejected if the
+     * buffer is full.
+     *
+     * @param source the text that identifies the source of the request.
+     * @param contentId the id of the content that is going to be served.
+     * @param asynchronous {@code true} if the request is served on the 
+     * serving pool, otherwise {@code false}.
+     * @return {@code true} if the content can be served, otherwise 
+     *          {@code false}.
+     * @throws RejectedExecutionException if the request is asynchronous and
+     * the buffer of the impressions is full.
      */
-    @AllArgsConstructor
-    private class MatchingContent {
-
-        /**
-         * Stpres the id of the actual content that has been matched.
-         */
-        @Getter
-        private final String contentId;
-
-        /**
-         * Stores the monetary amount tbe creator of the content is willing to
-         * pay per request of this campaign content.
-         */
-        @Getter
-        private final Money pricePerRequest;
-
-        /**
-         * Stores the number of general target groups that the content has
-         * matched.
-         *
-         */
-        @Getter
-        private final int groupMatches;
-
-        /**
-         * Stores the total number of subsets within the broader target groups
-         * that the content has matched.
-         */
-        @Getter
-        private final int machtesInGroup;
+    private boolean consumeRequest(
+            String source, Long contentId, boolean asynchronous) {
+        if (!this.budgetLedger.tryConsume(contentId))
+            return false;
+
+        boolean recorded = asynchronous
+                ? this.impressionWriter.tryRecord(contentId, source)
+                : this.impressionWriter.record(contentId, source);
+
+        if (!recorded) {
+            this.budgetLedger.release(contentId);
+
+            if (asynchronous)
+                throw new RejectedExecutionException(
+                        "The buffer of the impressions is full.");
+
+            return false;
+        }
+
+        return true;
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.services.web;
+
+import de.oth.fkretschmar.advertisementproject.business.services.web.soap.RequestContext;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.ContentFormat;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetContext;
+
+import java.io.Serializable;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the transfer class for a single ad slot of a page for which a
+ * content is requested.
+ *
+ * @author fkre
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlRootElement(name = "ContentSlot")
+@AllArgsConstructor
+@NoArgsConstructor
+public class ContentSlot implements Serializable {
+
+    // --------------- Private fields ---------------
+    /**
+     * Stores the format that the content of the slot is supposed to have.
+     */
+    @Getter
+    @XmlAttribute(name = "format", required = true)
+    private ContentFormat format;
+
+    /**
+     * Stores the target groups that the content of the slot should cater to.
+     */
+    @XmlElement(name = "context")
+    private RequestContext context;
+
+    // --------------- Public getter and setter ---------------
+    /**
+     * Gets the target context of the slot.
+     *
+     * @return the target context or {@code null} if the slot is not targeted
+     * at any group.
+     */
+    public TargetContext getTargetContext() {
+        if (this.context == null || !this.context.isTargeted())
+            return null;
+
+        return TargetContext.createTargetContext()
+                .targetAges(this.context.getTargetAgeGroups())
+                .targetGenders(this.context.getTargetGenderGroups())
+                .targetMaritalStatus(this.context.getTargetMaritalStatusGroups())
+                .targetPurposeOfUses(this.context.getTargetPurposeOfUseGroups())
+                .build();
+    }
+}
@@ -16,9 +16,13 @@
  */
 package de.oth.fkretschmar.advertisementproject.business.services.web;
 
+import de.oth.fkretschmar.advertisementproject.business.serving.RenderedContent;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.ContentFormat;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetContext;
 
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  *
  * @author Admin
@@ -34,9 +38,9 @@ public interface IContentProviderService {
      * @param source that requested the content.
      * @param format the format of the content.
      * @param context the target context of the request.
-     * @return the best matching content.
+     * @return the rendered response of the best matching content.
      */
-    public ContentRequestResult requestContent(
+    public RenderedContent requestContent(
             String source, ContentFormat format, TargetContext context);
 
     /**
@@ -45,8 +49,64 @@ public interface IContentProviderService {
      *
      * @param source that requested the content.
      * @param format the format of the content.
-     * @return the best matching content.
+     * @return the rendered response of the best matching content.
      */
-    public ContentRequestResult requestUntargetedContent(
+    public RenderedContent requestUntargetedContent(
             String source, ContentFormat format);
+
+    /**
+     * Selects the advertisement content that best matches the provided
+     * {@link TargetContext} and records the impression without accessing
+     * the database.
+     *
+     * @param source that requested the content.
+     * @param format the format of the content.
+     * @param context the target context of the request.
+     * @return the id of the best matching content or {@code null} if no
+     * content can be served.
+     * @throws RejectedExecutionException if the impression cannot be 
+     * recorded right now because the buffer of the impressions is full.
+     */
+    public Long serveContent(
+            String source, ContentFormat format, TargetContext context);
+
+    /**
+     * Selects a random advertisement that has not been matched with any
+     * target context and records the impression without accessing the 
+     * database.
+     *
+     * @param source the text that identifies the source of the request.
+     * @param format the format that the content is supposed to have.
+     * @return the id of the content that has been chosen randomly or 
+     * {@code null} if no content can be served.
+     * @throws RejectedExecutionException if the impression cannot be 
+     * recorded right now because the buffer of the impressions is full.
+     */
+    public Long serveUntargetedContent(String source, ContentFormat format);
+
+    /**
+     * Withdraws a content that has been served but could not be delivered.
+     * The consumed request is given back and the impression is removed if it
+     * has not been written yet.
+     *
+     * @param source the text that identifies the source of the request.
+     * @param contentId the id of the content that has been served.
+     * @return {@code true} if the impression has been removed, {@code false}
+     * if it has already been written.
+     */
+    public boolean withdrawContent(String source, Long contentId);
+
+    /**
+     * Retrieves one advertisement content for each of the specified slots of
+     * a page.
+     *
+     * @param source that requested the contents.
+     * @param slots the slots for which contents are requested.
+     * @param distinct {@code true} if a content may only be served once on 
+     * the page, otherwise {@code false}.
+     * @return the rendered responses in the order of the slots, containing
+     * {@code null} for every slot without a matching content.
+     */
+    public List<RenderedContent> requestContents(
+            String source, List<ContentSlot> slots, boolean distinct);
 }
@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.services.web;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Defines how the latency of a call to the {@link SimulatedTransactionWS} is
+ * distributed around its configured mean.
+ * 
+ * @author fkre
+ */
+public enum LatencyDistribution {
+    
+    // --------------- Enum fields ---------------
+    
+    /**
+     * Indicates that every call takes exactly the mean latency.
+     */
+    CONSTANT {
+        @Override
+        public long sample(long mean) {
+            return mean;
+        }
+    },
+    
+    /**
+     * Indicates that the latency is distributed uniformly between zero and 
+     * twice the mean latency.
+     */
+    UNIFORM {
+        @Override
+        public long sample(long mean) {
+            return ThreadLocalRandom.current().nextLong(2 * mean + 1);
+        }
+    },
+    
+    /**
+     * Indicates that the latency is distributed exponentially, so that most
+     * calls are fast and a few calls take several times the mean latency.
+     */
+    EXPONENTIAL {
+        @Override
+        public long sample(long mean) {
+            return (long) (-mean * Math.log(
+                    1 - ThreadLocalRandom.current().nextDouble()));
+        }
+    };
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Samples the latency of a single call.
+     *
+     * @param   mean    the mean latency in milliseconds.
+     * @return  the sampled latency in milliseconds.
+     */
+    public abstract long sample(long mean);
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.services.web;
+
+import de.jreichl.service.web.ITransactionWS;
+import de.jreichl.service.web.TransactionFailedException_Exception;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.xml.ws.WebServiceException;
+import org.iban4j.Iban4jException;
+import org.iban4j.IbanUtil;
+
+/**
+ * The in-process stand-in of the bank web service that implements the
+ * generated {@link ITransactionWS} contract, so that billing throughput and
+ * failure handling can be measured without the bank.
+ *
+ * Every call waits for a sampled latency and fails on the transport level 
+ * with the configured error rate or if the latency exceeds the read timeout.
+ * Invalid IBANs are answered with the faults of the bank, and transfers are
+ * declined as "Nicht genügend Geld" with the configured rate. The simulator
+ * keeps no state and can be shared by all threads.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+public class SimulatedTransactionWS implements ITransactionWS {
+
+    // --------------- Private static constants ---------------
+
+    /**
+     * Defines the message of the bank if the sender has not enough money.
+     */
+    private static final String OUT_OF_MONEY_MESSAGE 
+            = "Nicht genügend Geld auf dem Konto.";
+
+    /**
+     * Defines the message of the bank if an IBAN is not valid.
+     */
+    private static final String INVALID_IBAN_MESSAGE = "%s is not a valid IBAN";
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the probability of a call to fail on the transport level.
+     */
+    private final double errorRate;
+
+    /**
+     * Stores the mean latency of a call in milliseconds.
+     */
+    private final long latency;
+
+    /**
+     * Stores the distribution of the latency around its mean.
+     */
+    private final LatencyDistribution latencyDistribution;
+
+    /**
+     * Stores the probability of a transfer to be declined because the sender
+     * has not enough money.
+     */
+    private final double outOfMoneyRate;
+
+    /**
+     * Stores the time in milliseconds after which a call times out.
+     */
+    private final long readTimeout;
+
+    // --------------- Public constructors ---------------
+
+    /**
+     * Creates a new instance of {@link SimulatedTransactionWS} using the 
+     * specified behaviour.
+     *
+     * @param   latency             the mean latency of a call in milliseconds.
+     * @param   latencyDistribution the distribution of the latency.
+     * @param   errorRate           the probability of a transport error.
+     * @param   outOfMoneyRate      the probability of a declined transfer.
+     * @param   readTimeout         the time in milliseconds after which a 
+     *                              call times out.
+     */
+    public SimulatedTransactionWS(
+            long latency,
+            LatencyDistribution latencyDistribution,
+            double errorRate,
+            double outOfMoneyRate,
+            long readTimeout) {
+        this.latency = latency;
+        this.latencyDistribution = latencyDistribution;
+        this.errorRate = errorRate;
+        this.outOfMoneyRate = outOfMoneyRate;
+        this.readTimeout = readTimeout;
+    }
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Simulates the transfer of the specified amount between the specified 
+     * accounts.
+     *
+     * @param   amountInCent    the amount in cent.
+     * @param   fromIBAN        the IBAN of the sender.
+     * @param   toIBAN          the IBAN of the recipient.
+     * @param   description     the reason of the transfer.
+     * @return  {@code true} if the transfer has been executed.
+     * @throws  TransactionFailedException_Exception    if the bank declined
+     *                                                  the transfer.
+     */
+    @Override
+    public boolean transfer(
+            long amountInCent, 
+            String fromIBAN, 
+            String toIBAN, 
+            String description) throws TransactionFailedException_Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long sampledLatency = this.latencyDistribution.sample(this.latency);
+
+        this.await(Math.min(sampledLatency, this.readTimeout));
+
+        if (sampledLatency > this.readTimeout) {
+            throw new WebServiceException(
+                    "Simulated read timeout.", 
+                    new SocketTimeoutException("Read timed out"));
+        }
+
+        if (random.nextDouble() < this.errorRate) {
+            throw new WebServiceException(
+                    "Simulated transport error.", 
+                    new ConnectException("Connection refused"));
+        }
+
+        SimulatedTransactionWS.validateIban(amountInCent, fromIBAN, toIBAN, fromIBAN);
+        SimulatedTransactionWS.validateIban(amountInCent, fromIBAN, toIBAN, toIBAN);
+
+        if (random.nextDouble() < this.outOfMoneyRate) {
+            throw SimulatedTransactionWS.createFault(
+                    amountInCent, 
+                    fromIBAN, 
+                    toIBAN, 
+                    SimulatedTransactionWS.OUT_OF_MONEY_MESSAGE);
+        }
+
+        return true;
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Blocks the calling thread for the specified time.
+     *
+     * @param   millis  the time in milliseconds.
+     */
+    private void await(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new WebServiceException("Simulated call interrupted.", ex);
+        }
+    }
+
+    // --------------- Private static methods ---------------
+
+    /**
+     * Creates the fault of the bank for the specified transfer.
+     *
+     * @param   amountInCent    the amount in cent.
+     * @param   fromIBAN        the IBAN of the sender.
+     * @param   toIBAN          the IBAN of the recipient.
+     * @param   message         the message of the fault.
+     * @return  the fault.
+     */
+    private static TransactionFailedException_Exception createFault(
+            long amountInCent,
+            String fromIBAN,
+            String toIBAN,
+            String message) {
+        de.jreichl.service.web.TransactionFailedException faultInfo
+                = new de.jreichl.service.web.TransactionFailedException();
+        faultInfo.setAmountInCent(amountInCent);
+        faultInfo.setFromIBAN(fromIBAN);
+        faultInfo.setToIBAN(toIBAN);
+        faultInfo.setMessage(message);
+
+        return new TransactionFailedException_Exception(message, faultInfo);
+    }
+
+
+    /**
+     * Validates the specified IBAN of the transfer like the bank does.
+     *
+     * @param   amountInCent    the amount in cent.
+     * @param   fromIBAN        the IBAN of the sender.
+     * @param   toIBAN          the IBAN of the recipient.
+     * @param   iban            the IBAN that is validated.
+     * @throws  TransactionFailedException_Exception    if the IBAN is not 
+     *                                                  valid.
+     */
+    private static void validateIban(
+            long amountInCent,
+            String fromIBAN,
+            String toIBAN,
+            String iban) throws TransactionFailedException_Exception {
+        if (iban != null) {
+            try {
+                IbanUtil.validate(iban);
+                return;
+            } catch (Iban4jException ex) {
+                // answered with the fault of the bank below
+            }
+        }
+
+        throw SimulatedTransactionWS.createFault(
+                amountInCent, 
+                fromIBAN, 
+                toIBAN, 
+                String.format(
+                        SimulatedTransactionWS.INVALID_IBAN_MESSAGE, iban));
+    }
+}
@@ -38,5 +38,25 @@ public enum TransactionFailureReason {
      * Indicates that the transaction failed because the sender account is
      * out of money.
      */
-    SENDER_OUT_OF_MONEY;
+    SENDER_OUT_OF_MONEY,
+    
+    /**
+     * Indicates that the transaction failed because the payment provider 
+     * could not be reached. The request has not been sent, so that the 
+     * transaction might succeed later on.
+     */
+    SERVICE_UNAVAILABLE,
+    
+    /**
+     * Indicates that the request has been sent to the payment provider but
+     * no answer has been received, so that the transaction might have been 
+     * executed and must not be sent again before it has been checked.
+     */
+    OUTCOME_UNKNOWN,
+    
+    /**
+     * Indicates that the payment provider did not execute the transaction 
+     * for a reason that could not be determined.
+     */
+    UNKNOWN;
 }
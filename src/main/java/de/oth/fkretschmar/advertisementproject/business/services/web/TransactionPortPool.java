@@ -0,0 +1,321 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.services.web;
+
+import de.jreichl.service.web.ITransactionWS;
+import de.jreichl.service.web.TransactionWSService;
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.WebServiceRef;
+
+/**
+ * The pool of reusable {@link ITransactionWS} ports of the bank. Creating a 
+ * port is expensive, so every port is configured with the connect and read 
+ * timeouts once and then handed to one caller at a time, as ports are not 
+ * guaranteed to be thread-safe.
+ *
+ * A port whose call failed on the transport level is invalidated instead of
+ * being returned, and a port that has been idle for too long is discarded
+ * when it would be borrowed next, so that no stale connection is reused.
+ *
+ * If the simulator is enabled, the pool hands out a shared 
+ * {@link SimulatedTransactionWS} instead of ports of the bank, so that 
+ * billing can be load tested without the bank.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class TransactionPortPool {
+
+    // --------------- Private static constants ---------------
+
+    /**
+     * Defines the request context property of the connect timeout used by 
+     * the JAX-WS reference implementation (Metro).
+     */
+    private static final String METRO_CONNECT_TIMEOUT 
+            = "com.sun.xml.ws.connect.timeout";
+
+    /**
+     * Defines the request context property of the read timeout used by the 
+     * JAX-WS reference implementation (Metro).
+     */
+    private static final String METRO_REQUEST_TIMEOUT 
+            = "com.sun.xml.ws.request.timeout";
+
+    /**
+     * Defines the request context property of the connect timeout used by 
+     * Apache CXF.
+     */
+    private static final String CXF_CONNECT_TIMEOUT 
+            = "javax.xml.ws.client.connectionTimeout";
+
+    /**
+     * Defines the request context property of the read timeout used by 
+     * Apache CXF.
+     */
+    private static final String CXF_RECEIVE_TIMEOUT 
+            = "javax.xml.ws.client.receiveTimeout";
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the maximum time in milliseconds to wait for a free port.
+     */
+    @Inject
+    @ConfigurationValue(name = "bank.borrowTimeout", defaultValue = "5000")
+    private long borrowTimeout;
+
+    /**
+     * Stores the timeout in milliseconds for establishing a connection.
+     */
+    @Inject
+    @ConfigurationValue(name = "bank.connectTimeout", defaultValue = "2000")
+    private int connectTimeout;
+
+    /**
+     * Stores the ports that are currently not borrowed.
+     */
+    private final BlockingQueue<PooledPort> idlePorts 
+            = new LinkedBlockingQueue<PooledPort>();
+
+    /**
+     * Stores the time in milliseconds after which an idle port is discarded.
+     */
+    @Inject
+    @ConfigurationValue(name = "bank.portMaxIdle", defaultValue = "60000")
+    private long maxIdle;
+
+    /**
+     * Stores the permits for the ports that may exist at the same time.
+     */
+    private Semaphore permits;
+
+    /**
+     * Stores the maximum number of ports that may exist at the same time.
+     */
+    @Inject
+    @ConfigurationValue(name = "bank.portPoolSize", defaultValue = "8")
+    private int poolSize;
+
+    /**
+     * Stores the timeout in milliseconds for receiving the response.
+     */
+    @Inject
+    @ConfigurationValue(name = "bank.readTimeout", defaultValue = "10000")
+    private int readTimeout;
+
+    /**
+     * Stores whether or not the simulator is used instead of the bank.
+     */
+    @Inject
+    @ConfigurationValue(name = "bank.simulator", defaultValue = "false")
+    private boolean simulated;
+
+    /**
+     * Stores the probability of a transport error of the simulator.
+     */
+    @Inject
+    @ConfigurationValue(name = "bank.simulator.errorRate", defaultValue = "0")
+    private double simulatedErrorRate;
+
+    /**
+     * Stores the mean latency of the simulator in milliseconds.
+     */
+    @Inject
+    @ConfigurationValue(name = "bank.simulator.latency", defaultValue = "50")
+    private long simulatedLatency;
+
+    /**
+     * Stores the name of the {@link LatencyDistribution} of the simulator.
+     */
+    @Inject
+    @ConfigurationValue(
+            name = "bank.simulator.latencyDistribution", 
+            defaultValue = "EXPONENTIAL")
+    private String simulatedLatencyDistribution;
+
+    /**
+     * Stores the probability of the simulator to decline a transfer because
+     * of missing money.
+     */
+    @Inject
+    @ConfigurationValue(
+            name = "bank.simulator.outOfMoneyRate", defaultValue = "0")
+    private double simulatedOutOfMoneyRate;
+
+    /**
+     * Stores the simulator shared by all callers if it is enabled.
+     */
+    private ITransactionWS simulator;
+
+    /**
+     * Stores the transaction service used to create the ports.
+     */
+    @WebServiceRef(wsdlLocation = "WEB-INF/wsdl/im-lamport_8080/BankReichl/TransactionWS.wsdl")
+    private TransactionWSService service;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Borrows a port from the pool, which has to be given back using either
+     * {@link #release(ITransactionWS)} or {@link #invalidate(ITransactionWS)}.
+     *
+     * @return  the port or {@code null} if no port became available within 
+     *          the borrow timeout.
+     * @throws  InterruptedException    if the thread has been interrupted 
+     *                                  while waiting for a port.
+     */
+    public ITransactionWS borrow() throws InterruptedException {
+        if (!this.permits.tryAcquire(this.borrowTimeout, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+
+        try {
+            long now = System.currentTimeMillis();
+            PooledPort pooledPort;
+
+            // discard the ports whose connections might have gone stale
+            while ((pooledPort = this.idlePorts.poll()) != null) {
+                if (now - pooledPort.releasedAt <= this.maxIdle) {
+                    return pooledPort.port;
+                }
+            }
+
+            return this.createPort();
+        } catch (RuntimeException ex) {
+            this.permits.release();
+            throw ex;
+        }
+    }
+
+
+    /**
+     * Gives the specified healthy port back to the pool.
+     *
+     * @param   port    the port that has been borrowed.
+     */
+    public void release(ITransactionWS port) {
+        this.idlePorts.offer(new PooledPort(port, System.currentTimeMillis()));
+        this.permits.release();
+    }
+
+
+    /**
+     * Discards the specified port after its call failed, so that the next
+     * caller gets a freshly created port.
+     *
+     * @param   port    the port that has been borrowed.
+     */
+    public void invalidate(ITransactionWS port) {
+        this.permits.release();
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Creates a new port that uses the configured timeouts.
+     *
+     * @return  the port.
+     */
+    private ITransactionWS createPort() {
+        if (this.simulator != null) {
+            return this.simulator;
+        }
+
+        ITransactionWS port = this.service.getTransactionWSPort();
+        Map<String, Object> requestContext 
+                = ((BindingProvider) port).getRequestContext();
+
+        requestContext.put(
+                TransactionPortPool.METRO_CONNECT_TIMEOUT, this.connectTimeout);
+        requestContext.put(
+                TransactionPortPool.METRO_REQUEST_TIMEOUT, this.readTimeout);
+        requestContext.put(
+                TransactionPortPool.CXF_CONNECT_TIMEOUT, this.connectTimeout);
+        requestContext.put(
+                TransactionPortPool.CXF_RECEIVE_TIMEOUT, this.readTimeout);
+
+        return port;
+    }
+
+
+    /**
+     * Creates the permits of the pool and the simulator if it is enabled.
+     */
+    @PostConstruct
+    private void initialize() {
+        this.permits = new Semaphore(this.poolSize, true);
+
+        if (this.simulated) {
+            this.simulator = new SimulatedTransactionWS(
+                    this.simulatedLatency,
+                    LatencyDistribution.valueOf(this.simulatedLatencyDistribution),
+                    this.simulatedErrorRate,
+                    this.simulatedOutOfMoneyRate,
+                    this.readTimeout);
+        }
+    }
+
+    // --------------- Private classes ---------------
+
+    /**
+     * Represents an idle port together with the point in time at which it 
+     * has been given back to the pool.
+     */
+    private static final class PooledPort {
+
+        /**
+         * Stores the idle port.
+         */
+        private final ITransactionWS port;
+
+        /**
+         * Stores the time in milliseconds at which the port has been given 
+         * back.
+         */
+        private final long releasedAt;
+
+        /**
+         * Creates a new instance of {@link PooledPort} using the specified
+         * port and release time.
+         *
+         * @param   port        the idle port.
+         * @param   releasedAt  the time at which the port has been given back.
+         */
+        private PooledPort(ITransactionWS port, long releasedAt) {
+            this.port = port;
+            this.releasedAt = releasedAt;
+        }
+    }
+}
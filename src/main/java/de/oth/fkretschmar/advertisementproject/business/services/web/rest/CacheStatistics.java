@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.services.web.rest;
+
+import de.oth.fkretschmar.advertisementproject.business.cache.CacheRegionStatistics;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import lombok.Getter;
+
+/**
+ * Represents the body of a REST response describing the usage of all regions
+ * of the second level cache.
+ *
+ * @author fkre
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlRootElement(name = "CacheRegions")
+public class CacheStatistics implements Serializable {
+
+    // --------------- Private fields ---------------
+    /**
+     * Stores the usage of every region.
+     */
+    @Getter
+    @XmlElement(name = "region")
+    private List<CacheRegionStatistics> regions 
+            = new ArrayList<CacheRegionStatistics>();
+
+    // --------------- Public constructors ---------------
+    /**
+     * Creates a new instance of {@link CacheStatistics}.
+     */
+    public CacheStatistics() {
+    }
+
+    /**
+     * Creates a new instance of {@link CacheStatistics} using the specified 
+     * usage of the regions.
+     *
+     * @param   regions the usage of every region.
+     */
+    public CacheStatistics(List<CacheRegionStatistics> regions) {
+        this.regions = regions;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.services.web.rest;
+
+import de.oth.fkretschmar.advertisementproject.business.cache.SharedCache;
+
+import java.io.Serializable;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * The service that exposes the hits and misses of the second level cache to 
+ * operators, so that the cache can be sized.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@RequestScoped
+@Path("cacheStatistics")
+public class CacheStatisticsREST implements Serializable {
+
+    // --------------- Private fields ---------------
+    /**
+     * Stores the cache whose statistics are exposed.
+     */
+    @Inject
+    private SharedCache sharedCache;
+
+    // --------------- Public methods ---------------
+    /**
+     * Retrieves the hits, misses, puts and entries of every cache region.
+     *
+     * @return the statistics of the cache.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_XML)
+    public CacheStatistics getCacheStatistics() {
+        return new CacheStatistics(this.sharedCache.getStatistics());
+    }
+}
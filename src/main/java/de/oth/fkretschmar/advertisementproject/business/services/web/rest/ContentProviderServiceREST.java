@@ -16,27 +16,43 @@
  */
 package de.oth.fkretschmar.advertisementproject.business.services.web.rest;
 
-import de.oth.fkretschmar.advertisementproject.business.services.web.ContentRequestResult;
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
 import de.oth.fkretschmar.advertisementproject.business.services.web.IContentProviderService;
+import de.oth.fkretschmar.advertisementproject.business.serving.RenderedContent;
+import de.oth.fkretschmar.advertisementproject.business.serving.ResponseCache;
+import de.oth.fkretschmar.advertisementproject.business.serving.ServingExecutor;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.ContentFormat;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetAge;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetContext;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetGender;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetMaritalStatus;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetPurposeOfUse;
 
+import java.io.ByteArrayOutputStream;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedExecutorService;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 /**
  * The service that offers functionality relatetd to the generation and
@@ -48,12 +64,59 @@ import javax.ws.rs.core.MediaType;
 @Path("contentProvider")
 public class ContentProviderServiceREST implements Serializable {
 
+    // --------------- Private static constants ---------------
+    /**
+     * Defines the start of the response for several contents.
+     */
+    private static final byte[] RESULTS_START 
+            = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><ContentRequestResults>"
+                    .getBytes(StandardCharsets.UTF_8);
+    
+    /**
+     * Defines the end of the response for several contents.
+     */
+    private static final byte[] RESULTS_END 
+            = "</ContentRequestResults>".getBytes(StandardCharsets.UTF_8);
+    
+    /**
+     * Defines the result of a slot for which no content has been found.
+     */
+    private static final byte[] EMPTY_RESULT 
+            = "<ContentRequestResult/>".getBytes(StandardCharsets.UTF_8);
+    
     // --------------- Private fields ---------------
+    /**
+     * Stores the time in milliseconds after which an asynchronous request is
+     * answered as unavailable.
+     */
+    @Inject
+    @ConfigurationValue(name = "serving.asyncTimeout", defaultValue = "2000")
+    private long asyncTimeout;
+    
     /**
      * Stores the service used to manage request for contents.
      */
     @Inject
     private IContentProviderService contentProviderService;
+    
+    /**
+     * Stores the executor used to render contents that have not been cached
+     * for asynchronous requests.
+     */
+    @Resource
+    private ManagedExecutorService renderingExecutor;
+    
+    /**
+     * Stores the cache of the rendered responses of the served contents.
+     */
+    @Inject
+    private ResponseCache responseCache;
+    
+    /**
+     * Stores the pool used to select contents for asynchronous requests.
+     */
+    @Inject
+    private ServingExecutor servingExecutor;
 
     // --------------- Public methods ---------------
     /**
@@ -66,36 +129,23 @@ public class ContentProviderServiceREST implements Serializable {
      * @param genders the targetet gender groups.
      * @param maritalStatus the targeted marital status groups.
      * @param purposesOfUse the targeted purposes of use groups.
-     * @return the best matching content.
+     * @return the response containing the best matching content.
      */
     @GET
     @Path("requestContent/{source}")
     @Produces(MediaType.APPLICATION_XML)
-    public ContentRequestResult requestContent(
+    public Response requestContent(
             @PathParam("source") String source,
             @QueryParam("format") RequestContentFormat format,
             @QueryParam("targetAge") List<RequestTargetAge> ages,
             @QueryParam("targetGender") List<RequestTargetGender> genders,
             @QueryParam("targetMaritalStatus") List<RequestTargetMaritalStatus> maritalStatus,
             @QueryParam("targetPurposeOfUse") List<RequestTargetPurposeOfUse> purposesOfUse) {
-        EnumSet<TargetAge> targetAges
-                = this.extractEnumSet(ages, TargetAge.class);
-        EnumSet<TargetGender> targetGenders
-                = this.extractEnumSet(genders, TargetGender.class);
-        EnumSet<TargetMaritalStatus> targetMaritalStatus
-                = this.extractEnumSet(maritalStatus, TargetMaritalStatus.class);
-        EnumSet<TargetPurposeOfUse> targetPurposesOfUse
-                = this.extractEnumSet(purposesOfUse, TargetPurposeOfUse.class);
+        TargetContext context = this.createTargetContext(
+                ages, genders, maritalStatus, purposesOfUse);
 
-        TargetContext context = TargetContext.createTargetContext()
-                .targetAges(targetAges)
-                .targetGenders(targetGenders)
-                .targetMaritalStatus(targetMaritalStatus)
-                .targetPurposeOfUses(targetPurposesOfUse)
-                .build();
-
-        return this.contentProviderService.requestContent(
-                source, format.getEnumValue(), context);
+        return ContentProviderServiceREST.createResponse(this.contentProviderService.requestContent(
+                source, format.getEnumValue(), context));
     }
 
     /**
@@ -104,20 +154,170 @@ public class ContentProviderServiceREST implements Serializable {
      *
      * @param source that requested the content.
      * @param format the format of the content.
-     * @return the best matching content.
+     * @return the response containing the best matching content.
      */
     @GET
     @Path("requestUntargetedContent/{source}")
     @Produces(MediaType.APPLICATION_XML)
-    public ContentRequestResult requestUntargetedContent(
+    public Response requestUntargetedContent(
             @PathParam("source") String source,
             @QueryParam("format") RequestContentFormat format) {
-        return this.contentProviderService.requestUntargetedContent(
-                source, format.getEnumValue());
+        return ContentProviderServiceREST.createResponse(
+                this.contentProviderService.requestUntargetedContent(
+                        source, format.getEnumValue()));
     }
     
+    /**
+     * Retrieves an advertisement content that best matches the provided
+     * {@link TargetContext} without blocking the thread of the HTTP request.
+     *
+     * @param asyncResponse the response that will be resumed with the best
+     * matching content.
+     * @param source that requested the content.
+     * @param format the format of the content.
+     * @param ages the targeted age groups.
+     * @param genders the targetet gender groups.
+     * @param maritalStatus the targeted marital status groups.
+     * @param purposesOfUse the targeted purposes of use groups.
+     */
+    @GET
+    @Path("async/requestContent/{source}")
+    @Produces(MediaType.APPLICATION_XML)
+    public void requestContentAsync(
+            @Suspended AsyncResponse asyncResponse,
+            @PathParam("source") String source,
+            @QueryParam("format") RequestContentFormat format,
+            @QueryParam("targetAge") List<RequestTargetAge> ages,
+            @QueryParam("targetGender") List<RequestTargetGender> genders,
+            @QueryParam("targetMaritalStatus") List<RequestTargetMaritalStatus> maritalStatus,
+            @QueryParam("targetPurposeOfUse") List<RequestTargetPurposeOfUse> purposesOfUse) {
+        TargetContext context = this.createTargetContext(
+                ages, genders, maritalStatus, purposesOfUse);
+        ContentFormat contentFormat = format.getEnumValue();
+        IContentProviderService service = this.contentProviderService;
+
+        this.serveAsynchronously(
+                asyncResponse, 
+                source,
+                () -> service.serveContent(source, contentFormat, context));
+    }
+
+    /**
+     * Retrieves a random advertisement content without blocking the thread
+     * of the HTTP request.
+     *
+     * @param asyncResponse the response that will be resumed with the 
+     * content.
+     * @param source that requested the content.
+     * @param format the format of the content.
+     */
+    @GET
+    @Path("async/requestUntargetedContent/{source}")
+    @Produces(MediaType.APPLICATION_XML)
+    public void requestUntargetedContentAsync(
+            @Suspended AsyncResponse asyncResponse,
+            @PathParam("source") String source,
+            @QueryParam("format") RequestContentFormat format) {
+        ContentFormat contentFormat = format.getEnumValue();
+        IContentProviderService service = this.contentProviderService;
+
+        this.serveAsynchronously(
+                asyncResponse, 
+                source,
+                () -> service.serveUntargetedContent(source, contentFormat));
+    }
+    
+    /**
+     * Retrieves one advertisement content for each of the slots of a page.
+     *
+     * @param source that requested the contents.
+     * @param slots the slots for which contents are requested.
+     * @return the response containing one result per slot in the order of 
+     * the slots, an empty result element for every slot without a content.
+     */
+    @POST
+    @Path("requestContents/{source}")
+    @Consumes(MediaType.APPLICATION_XML)
+    @Produces(MediaType.APPLICATION_XML)
+    public Response requestContents(
+            @PathParam("source") String source,
+            RequestContentSlots slots) {
+        List<RenderedContent> contents 
+                = this.contentProviderService.requestContents(
+                        source, slots.getSlots(), slots.isDistinct());
+        
+        // concatenate the already rendered results instead of marshalling 
+        // them again
+        ByteArrayOutputStream xml = new ByteArrayOutputStream();
+        xml.write(
+                ContentProviderServiceREST.RESULTS_START,
+                0,
+                ContentProviderServiceREST.RESULTS_START.length);
+        
+        contents.forEach(content -> {
+            byte[] result = content == null
+                    ? ContentProviderServiceREST.EMPTY_RESULT
+                    : content.getXml();
+            xml.write(result, 0, result.length);
+        });
+        
+        xml.write(
+                ContentProviderServiceREST.RESULTS_END,
+                0,
+                ContentProviderServiceREST.RESULTS_END.length);
+        
+        return Response.ok(xml.toByteArray(), MediaType.APPLICATION_XML).build();
+    }
+
     // --------------- Private methods ---------------
     
+    /**
+     * Creates the response that writes the already rendered XML of the
+     * specified content.
+     * 
+     * @param content the rendered response of a content.
+     * @return the response or an empty response if no content has been found.
+     */
+    private static Response createResponse(RenderedContent content) {
+        if (content == null)
+            return Response.noContent().build();
+        
+        return Response.ok(content.getXml(), MediaType.APPLICATION_XML).build();
+    }
+    
+    
+    /**
+     * Creates the target context from the target groups of the REST request.
+     * 
+     * @param ages the targeted age groups.
+     * @param genders the targetet gender groups.
+     * @param maritalStatus the targeted marital status groups.
+     * @param purposesOfUse the targeted purposes of use groups.
+     * @return the target context of the request.
+     */
+    private TargetContext createTargetContext(
+            List<RequestTargetAge> ages,
+            List<RequestTargetGender> genders,
+            List<RequestTargetMaritalStatus> maritalStatus,
+            List<RequestTargetPurposeOfUse> purposesOfUse) {
+        EnumSet<TargetAge> targetAges
+                = this.extractEnumSet(ages, TargetAge.class);
+        EnumSet<TargetGender> targetGenders
+                = this.extractEnumSet(genders, TargetGender.class);
+        EnumSet<TargetMaritalStatus> targetMaritalStatus
+                = this.extractEnumSet(maritalStatus, TargetMaritalStatus.class);
+        EnumSet<TargetPurposeOfUse> targetPurposesOfUse
+                = this.extractEnumSet(purposesOfUse, TargetPurposeOfUse.class);
+
+        return TargetContext.createTargetContext()
+                .targetAges(targetAges)
+                .targetGenders(targetGenders)
+                .targetMaritalStatus(targetMaritalStatus)
+                .targetPurposeOfUses(targetPurposesOfUse)
+                .build();
+    }
+    
+    
     /**
      * Extracts the enum set of the target group from the provided parameter
      * list of the REST request.
@@ -139,4 +339,114 @@ public class ContentProviderServiceREST implements Serializable {
         
         return enumSet;
     }
+    
+    
+    /**
+     * Selects a content on the serving pool and resumes the specified 
+     * response with it. If the content still has to be rendered, this is
+     * handed off to the container managed executor, so that the serving pool
+     * never waits for the database. A request whose impression cannot be 
+     * recorded because the buffer is full is answered with 503 instead of 
+     * waiting for the buffer to be flushed. A request that has already timed 
+     * out does not select a content anymore, and a content that could not be
+     * delivered is withdrawn, so that it is neither consumed nor billed.
+     * 
+     * @param asyncResponse the response that will be resumed.
+     * @param source that requested the content.
+     * @param selection the selection of the content that returns its id or
+     * {@code null} if no content can be served.
+     */
+    private void serveAsynchronously(
+            AsyncResponse asyncResponse, 
+            String source, 
+            Supplier<Long> selection) {
+        IContentProviderService service = this.contentProviderService;
+        ResponseCache cache = this.responseCache;
+        ManagedExecutorService renderingExecutor = this.renderingExecutor;
+        
+        asyncResponse.setTimeout(this.asyncTimeout, TimeUnit.MILLISECONDS);
+        asyncResponse.setTimeoutHandler(response -> response.resume(
+                Response.status(Response.Status.SERVICE_UNAVAILABLE).build()));
+        
+        try {
+            this.servingExecutor.execute(() -> {
+                if (asyncResponse.isDone())
+                    return;
+                
+                Long contentId;
+                
+                try {
+                    contentId = selection.get();
+                } catch (RejectedExecutionException ex) {
+                    asyncResponse.resume(Response.status(
+                            Response.Status.SERVICE_UNAVAILABLE).build());
+                    return;
+                } catch (RuntimeException ex) {
+                    asyncResponse.resume(ex);
+                    return;
+                }
+                
+                if (contentId == null) {
+                    asyncResponse.resume(
+                            ContentProviderServiceREST.createResponse(null));
+                    return;
+                }
+                
+                RenderedContent content = cache.getIfPresent(contentId);
+                
+                if (content != null) {
+                    ContentProviderServiceREST.deliver(
+                            asyncResponse, service, source, contentId, 
+                            () -> content);
+                    return;
+                }
+                
+                try {
+                    renderingExecutor.execute(() -> 
+                            ContentProviderServiceREST.deliver(
+                                    asyncResponse, service, source, contentId, 
+                                    () -> cache.get(contentId)));
+                } catch (RejectedExecutionException ex) {
+                    service.withdrawContent(source, contentId);
+                    asyncResponse.resume(Response.status(
+                            Response.Status.SERVICE_UNAVAILABLE).build());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            asyncResponse.resume(
+                    Response.status(Response.Status.SERVICE_UNAVAILABLE).build());
+        }
+    }
+    
+    
+    /**
+     * Resumes the specified response with the rendered content and withdraws 
+     * the content if the response could not be resumed with it, e.g. because 
+     * the request has timed out in the meantime.
+     * 
+     * @param asyncResponse the response that will be resumed.
+     * @param service the service used to withdraw the content.
+     * @param source that requested the content.
+     * @param contentId the id of the served content.
+     * @param rendering the rendering of the content.
+     */
+    private static void deliver(
+            AsyncResponse asyncResponse,
+            IContentProviderService service,
+            String source,
+            Long contentId,
+            Supplier<RenderedContent> rendering) {
+        boolean delivered;
+        
+        try {
+            delivered = asyncResponse.resume(
+                    ContentProviderServiceREST.createResponse(rendering.get()));
+        } catch (RuntimeException ex) {
+            asyncResponse.resume(ex);
+            delivered = false;
+        }
+        
+        if (!delivered)
+            service.withdrawContent(source, contentId);
+    }
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.services.web.rest;
+
+import de.oth.fkretschmar.advertisementproject.business.billing.ProviderHealth;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import lombok.Getter;
+
+/**
+ * Represents the body of a REST response describing the health of all 
+ * payment providers.
+ *
+ * @author fkre
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlRootElement(name = "PaymentProviders")
+public class PaymentHealth implements Serializable {
+
+    // --------------- Private fields ---------------
+    /**
+     * Stores the health of every provider.
+     */
+    @Getter
+    @XmlElement(name = "provider")
+    private List<ProviderHealth> providers = new ArrayList<ProviderHealth>();
+
+    // --------------- Public constructors ---------------
+    /**
+     * Creates a new instance of {@link PaymentHealth}.
+     */
+    public PaymentHealth() {
+    }
+
+    /**
+     * Creates a new instance of {@link PaymentHealth} using the specified 
+     * health of the providers.
+     *
+     * @param   providers   the health of every provider.
+     */
+    public PaymentHealth(List<ProviderHealth> providers) {
+        this.providers = providers;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.services.web.rest;
+
+import de.oth.fkretschmar.advertisementproject.business.billing.PaymentDispatcher;
+
+import java.io.Serializable;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+
+/**
+ * The service that exposes the health of the payment providers to operators.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@RequestScoped
+@Path("paymentHealth")
+public class PaymentHealthREST implements Serializable {
+
+    // --------------- Private fields ---------------
+    /**
+     * Stores the dispatcher that guards the payment providers.
+     */
+    @Inject
+    private PaymentDispatcher paymentDispatcher;
+
+    // --------------- Public methods ---------------
+    /**
+     * Retrieves the circuit state, call counts and latencies of every payment 
+     * provider.
+     *
+     * @return the health of the payment providers.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_XML)
+    public PaymentHealth getPaymentHealth() {
+        return new PaymentHealth(this.paymentDispatcher.getProviderHealth());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.services.web.rest;
+
+import de.oth.fkretschmar.advertisementproject.business.services.web.ContentSlot;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import lombok.Getter;
+
+/**
+ * Represents the body of a REST request for the contents of several ad slots
+ * of a page.
+ *
+ * @author fkre
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlRootElement(name = "ContentSlots")
+public class RequestContentSlots implements Serializable {
+
+    // --------------- Private fields ---------------
+    /**
+     * Stores whether or not a content may only be served once on the page.
+     */
+    @Getter
+    @XmlAttribute(name = "distinct")
+    private boolean distinct;
+
+    /**
+     * Stores the slots for which contents are requested.
+     */
+    @Getter
+    @XmlElement(name = "slot")
+    private List<ContentSlot> slots = new ArrayList<ContentSlot>();
+}
@@ -17,12 +17,16 @@
 package de.oth.fkretschmar.advertisementproject.business.services.web.soap;
 
 import de.oth.fkretschmar.advertisementproject.business.services.web.ContentRequestResult;
+import de.oth.fkretschmar.advertisementproject.business.services.web.ContentSlot;
 import de.oth.fkretschmar.advertisementproject.business.services.web.IContentProviderService;
+import de.oth.fkretschmar.advertisementproject.business.serving.RenderedContent;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.ContentFormat;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetContext;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -75,8 +79,8 @@ public class ContentProviderServiceSOAP implements Serializable {
                 .targetPurposeOfUses(requestContext.getTargetPurposeOfUseGroups())
                 .build();
         
-        return this.contentProviderService.requestContent(
-                source, format, context);
+        return this.extractResult(this.contentProviderService.requestContent(
+                source, format, context));
     }
 
     /**
@@ -91,7 +95,43 @@ public class ContentProviderServiceSOAP implements Serializable {
     public ContentRequestResult requestUntargetedContent(
             @WebParam(name = "source") String source,
             @WebParam(name = "format") ContentFormat format) {
-        return this.contentProviderService.requestUntargetedContent(
-                source, format);
+        return this.extractResult(
+                this.contentProviderService.requestUntargetedContent(
+                        source, format));
+    }
+    
+    /**
+     * Retrieves one advertisement content for each of the slots of a page.
+     *
+     * @param source the text that identifies the source of the request.
+     * @param slots the slots for which contents are requested.
+     * @param distinct {@code true} if a content may only be served once on 
+     * the page, otherwise {@code false}.
+     * @return the contents in the order of the slots, containing 
+     * {@code null} for every slot without a content.
+     */
+    @WebMethod(action = "requestContents")
+    public List<ContentRequestResult> requestContents(
+            @WebParam(name = "source") String source,
+            @WebParam(name = "slot") List<ContentSlot> slots,
+            @WebParam(name = "distinct") boolean distinct) {
+        List<ContentRequestResult> results = new ArrayList<ContentRequestResult>();
+        
+        this.contentProviderService.requestContents(source, slots, distinct)
+                .forEach(content -> results.add(this.extractResult(content)));
+        
+        return results;
+    }
+    
+    // --------------- Private methods ---------------
+    
+    /**
+     * Extracts the result from the specified rendered response.
+     * 
+     * @param response the rendered response of a content.
+     * @return the result or {@code null} if no content has been found.
+     */
+    private ContentRequestResult extractResult(RenderedContent response) {
+        return response == null ? null : response.getResult();
     }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Represents an immutable alias table (Vose's method) that samples a position
+ * proportionally to its weight in constant time.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+final class AliasTable {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the probability of every column to keep its own position instead
+     * of switching to its alias.
+     */
+    private final double[] probabilities;
+
+    /**
+     * Stores the alias position of every column.
+     */
+    private final int[] aliases;
+
+    // --------------- Public constructors ---------------
+
+    /**
+     * Creates a new instance of {@link AliasTable} using the specified
+     * weights. If all weights are zero, every position is equally likely.
+     *
+     * @param   weights the non negative weights of the positions.
+     */
+    public AliasTable(double[] weights) {
+        int size = weights.length;
+        this.probabilities = new double[size];
+        this.aliases = new int[size];
+
+        double totalWeight = 0;
+        for (double weight : weights) {
+            totalWeight += weight;
+        }
+
+        // scale the weights so that the average column has a weight of 1
+        double[] scaled = new double[size];
+        for (int position = 0; position < size; position++) {
+            scaled[position] = totalWeight > 0
+                    ? weights[position] * size / totalWeight
+                    : 1;
+        }
+
+        // use two stacks within one array: small columns grow from the start,
+        // large columns from the end
+        int[] worklist = new int[size];
+        int small = 0;
+        int large = size;
+
+        for (int position = 0; position < size; position++) {
+            if (scaled[position] < 1) {
+                worklist[small++] = position;
+            } else {
+                worklist[--large] = position;
+            }
+        }
+
+        while (small > 0 && large < size) {
+            int less = worklist[--small];
+            int more = worklist[large++];
+
+            this.probabilities[less] = scaled[less];
+            this.aliases[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1;
+
+            if (scaled[more] < 1) {
+                worklist[small++] = more;
+            } else {
+                worklist[--large] = more;
+            }
+        }
+
+        // the remaining columns are full apart from rounding errors
+        while (large < size) {
+            this.probabilities[worklist[large++]] = 1;
+        }
+
+        while (small > 0) {
+            this.probabilities[worklist[--small]] = 1;
+        }
+    }
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Samples a position according to the weights of the table.
+     *
+     * @return  the sampled position.
+     */
+    public int sample() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(this.probabilities.length);
+
+        return random.nextDouble() < this.probabilities[column]
+                ? column
+                : this.aliases[column];
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents the remaining number of requests of a single {@link Content}
+ * that can be consumed concurrently without accessing the database.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+final class Budget {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the number of remaining requests as stored in the database at
+     * the last reconciliation.
+     */
+    private volatile long available;
+
+    /**
+     * Stores the number of requests that have been consumed since the last
+     * reconciliation, striped over several cells to avoid contention.
+     */
+    private final LongAdder consumed = new LongAdder();
+
+    // --------------- Public constructors ---------------
+
+    /**
+     * Creates a new instance of {@link Budget} using the specified number of
+     * available requests.
+     *
+     * @param   available   the number of remaining requests in the database.
+     */
+    public Budget(long available) {
+        this.available = available;
+    }
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Gets the number of requests that have been consumed but not yet written
+     * to the database.
+     *
+     * @return  the number of pending requests.
+     */
+    public long pending() {
+        return this.consumed.sum();
+    }
+
+
+    /**
+     * Gets the number of requests that can still be consumed.
+     *
+     * @return  the number of remaining requests.
+     */
+    public long remaining() {
+        // read the consumption before the available requests: a concurrent
+        // reconciliation then can only make the result too small, never too 
+        // large
+        long consumed = this.consumed.sum();
+        return this.available - consumed;
+    }
+
+
+    /**
+     * Gives back a request that has been consumed but not served.
+     */
+    public void release() {
+        this.consumed.decrement();
+    }
+
+
+    /**
+     * Sets the number of available requests after the specified number of
+     * consumed requests has been written to the database.
+     *
+     * @param   available   the number of remaining requests in the database.
+     * @param   written     the number of consumed requests that have been 
+     *                      written.
+     */
+    public void reconcile(long available, long written) {
+        // lower the available requests first, so that the written requests 
+        // are counted twice for a moment instead of not at all
+        this.available = available;
+        this.consumed.add(-written);
+    }
+
+
+    /**
+     * Tries to consume one request.
+     *
+     * @return  the number of remaining requests after the request has been 
+     *          consumed or a negative number if the budget is depleted.
+     */
+    public long tryConsume() {
+        this.consumed.increment();
+        long remaining = this.remaining();
+
+        if (remaining < 0) {
+            this.consumed.decrement();
+        }
+
+        return remaining;
+    }
+}
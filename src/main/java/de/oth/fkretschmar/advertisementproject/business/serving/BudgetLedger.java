@@ -0,0 +1,349 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+import de.oth.fkretschmar.advertisementproject.business.annotation.ContentChanged;
+import de.oth.fkretschmar.advertisementproject.business.events.EntityEvent;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.Asynchronous;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.SessionContext;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+/**
+ * The ledger that keeps track of the remaining requests of every served
+ * {@link Content} in memory, so that serving a content neither has to update
+ * nor lock its row in the database.
+ *
+ * Every active content has a {@link Budget} that is created from the contents
+ * loaded by the {@link TargetingIndex} before the content can be selected, 
+ * so that serving never reads the database. A content without a budget is 
+ * treated as depleted. The consumed requests of all
+ * budgets are written back periodically as one relative update per content. 
+ * Once a budget falls below the low watermark it is written back right away,
+ * so that depleted contents and campaigns are ended without delay. The budget
+ * of a content that can no longer be served is removed once its consumed
+ * requests have been written.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class BudgetLedger {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the maximum time in milliseconds between two flushes.
+     */
+    @Inject
+    @ConfigurationValue(name = "budgets.flushInterval", defaultValue = "5000")
+    private long flushInterval;
+
+    /**
+     * Stores the number of remaining requests below which a budget is 
+     * flushed immediately.
+     */
+    @Inject
+    @ConfigurationValue(name = "budgets.lowWatermark", defaultValue = "100")
+    private long lowWatermark;
+
+    /**
+     * Stores the budgets of all served contents mapped by the id of the 
+     * content.
+     */
+    private final ConcurrentMap<Long, Budget> budgets
+            = new ConcurrentHashMap<Long, Budget>();
+
+    /**
+     * Stores the ids of the contents that can no longer be served and whose
+     * budgets are removed with the next flush.
+     */
+    private final Set<Long> retiredContentIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Stores whether a background flush has been triggered and not yet
+     * finished.
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * Stores the lock that makes sure only one flush runs at a time.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Stores the writer used to write the consumed requests.
+     */
+    @Inject
+    private BudgetWriter budgetWriter;
+
+    /**
+     * Stores the logger to log information for this class.
+     */
+    @Inject
+    private Logger logger;
+
+    /**
+     * Stores the context used to call this bean asynchronously.
+     */
+    @Resource
+    private SessionContext sessionContext;
+
+    /**
+     * Stores the timer service used to flush the budgets periodically.
+     */
+    @Resource
+    private TimerService timerService;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Writes the consumed requests of all budgets to the database. Requests
+     * that could not be written are kept and written with the next flush.
+     *
+     * @return  {@code true} if all budgets have been written, otherwise
+     *          {@code false}.
+     */
+    public boolean flush() {
+        this.flushLock.lock();
+
+        try {
+            Map<Long, Long> consumption = new HashMap<Long, Long>();
+
+            this.budgets.forEach((contentId, budget) -> {
+                long pending = budget.pending();
+
+                if (pending > 0) {
+                    consumption.put(contentId, pending);
+                }
+            });
+
+            if (consumption.isEmpty()) {
+                this.removeRetiredBudgets();
+                return true;
+            }
+
+            Map<Long, Long> remainingRequests;
+
+            try {
+                remainingRequests = this.budgetWriter.write(consumption);
+            } catch (RuntimeException ex) {
+                this.logger.log(
+                        Level.SEVERE,
+                        String.format(
+                                "Writing the budgets of %d contents failed.",
+                                consumption.size()),
+                        ex);
+                return false;
+            }
+
+            remainingRequests.forEach((contentId, remaining) -> 
+                    this.budgets.get(contentId).reconcile(
+                            remaining, consumption.get(contentId)));
+            this.removeRetiredBudgets();
+            return true;
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+
+    /**
+     * Writes the consumed requests of all budgets in the background.
+     */
+    @Asynchronous
+    public void flushAsynchronously() {
+        try {
+            this.flush();
+        } finally {
+            this.flushScheduled.set(false);
+        }
+    }
+
+
+    /**
+     * Gives back a request of the specified content that has been consumed
+     * but could not be served.
+     *
+     * @param   contentId   the id of the content.
+     */
+    public void release(Long contentId) {
+        Budget budget = this.budgets.get(contentId);
+
+        if (budget != null) {
+            budget.release();
+        }
+    }
+
+
+    /**
+     * Sets the number of remaining requests of the specified active content
+     * as stored in the database, creating its budget if it does not exist 
+     * yet. Requests that have been consumed but not written are kept.
+     *
+     * @param   contentId           the id of the content.
+     * @param   remainingRequests   the number of remaining requests in the
+     *                              database.
+     */
+    public void track(Long contentId, long remainingRequests) {
+        Budget budget = this.budgets.putIfAbsent(
+                contentId, new Budget(remainingRequests));
+
+        if (budget != null) {
+            budget.reconcile(remainingRequests, 0);
+        }
+    }
+
+
+    /**
+     * Tries to consume one request of the specified content.
+     *
+     * @param   contentId   the id of the content.
+     * @return  {@code true} if the request has been consumed, {@code false} 
+     *          if the content is depleted or not active.
+     */
+    public boolean tryConsume(Long contentId) {
+        Budget budget = this.budgets.get(contentId);
+
+        if (budget == null) {
+            return false;
+        }
+
+        long remaining = budget.tryConsume();
+
+        if (remaining < 0) {
+            return false;
+        }
+
+        if (remaining <= this.lowWatermark
+                && this.flushScheduled.compareAndSet(false, true)) {
+            this.sessionContext.getBusinessObject(BudgetLedger.class)
+                    .flushAsynchronously();
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Marks the budget of a {@link Content} that can no longer be served for
+     * removal as soon as the transaction in which it has been changed was 
+     * successfully committed.
+     *
+     * @param   event   the event containing the changed content.
+     */
+    public void onContentChanged(
+            @Observes(during = TransactionPhase.AFTER_SUCCESS)
+            @ContentChanged EntityEvent<Content> event) {
+        Content content = event.getEntity();
+
+        if (TargetingIndex.isActive(content)) {
+            this.retiredContentIds.remove(content.getId());
+        } else if (this.budgets.containsKey(content.getId())) {
+            this.retiredContentIds.add(content.getId());
+        }
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Starts the timer that flushes the budgets periodically.
+     */
+    @PostConstruct
+    private void initialize() {
+        this.timerService.createIntervalTimer(
+                this.flushInterval,
+                this.flushInterval,
+                new TimerConfig(null, false));
+    }
+
+
+    /**
+     * Writes all consumed requests before the application shuts down.
+     */
+    @PreDestroy
+    private void drain() {
+        if (!this.flush()) {
+            this.logger.log(
+                    Level.SEVERE,
+                    "The consumed requests could not be written on shutdown.");
+        }
+    }
+
+
+    /**
+     * Removes the budgets of the retired contents whose consumed requests 
+     * have been written. Has to be called while holding the flush lock.
+     */
+    private void removeRetiredBudgets() {
+        this.retiredContentIds.removeIf(contentId -> {
+            Budget budget = this.budgets.get(contentId);
+
+            if (budget != null && budget.pending() > 0) {
+                return false;
+            }
+
+            this.budgets.remove(contentId, budget);
+
+            // a request that has been served while the budget was removed is
+            // written with the next flush
+            if (budget != null && budget.pending() > 0) {
+                this.budgets.putIfAbsent(contentId, budget);
+                return false;
+            }
+
+            return true;
+        });
+    }
+
+
+    /**
+     * Gets called by the timer to flush the budgets periodically.
+     */
+    @Timeout
+    private void onTimeout() {
+        this.flush();
+    }
+}
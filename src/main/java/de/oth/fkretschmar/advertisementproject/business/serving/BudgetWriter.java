@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.ContentChanged;
+import de.oth.fkretschmar.advertisementproject.business.events.EntityEvent;
+import de.oth.fkretschmar.advertisementproject.business.repositories.ContentRepository;
+import de.oth.fkretschmar.advertisementproject.business.services.CampaignService;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Campaign;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.enterprise.context.Dependent;
+import javax.enterprise.event.Event;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+/**
+ * Writes the requests consumed from the {@link Budget} of several 
+ * {@link Content} instances to the database within a transaction of its own.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@Dependent
+public class BudgetWriter {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the service used to manage {@link Campaign} entites.
+     */
+    @Inject
+    private CampaignService campaignService;
+
+    /**
+     * Stores the sender of the content changed event.
+     */
+    @Inject
+    @ContentChanged
+    private Event<EntityEvent<Content>> contentChangedEventSender;
+
+    /**
+     * Stores the repository used to manage {@link Content} entites.
+     */
+    @Inject
+    private ContentRepository contentRepository;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Subtracts the specified number of consumed requests from every content
+     * with one update per content and ends the campaigns whose contents are
+     * all depleted.
+     *
+     * @param   consumption the number of consumed requests mapped by the id of
+     *                      the content.
+     * @return  the number of remaining requests after the update mapped by the
+     *          id of the content.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public Map<Long, Long> write(Map<Long, Long> consumption) {
+        Map<Long, Long> remainingRequests = new HashMap<Long, Long>();
+
+        // update all contents before loading any of them, so that the loaded 
+        // contents already contain the updated numbers
+        consumption.forEach(this.contentRepository::consumeRequests);
+
+        consumption.keySet().forEach(contentId -> {
+            Content content = this.contentRepository.find(contentId);
+            remainingRequests.put(contentId, content.getNumberOfRequests());
+
+            // if the number of requests on this content are depleted 
+            // -> make sure the campaign still has a non depleted content
+            // -> if not: end campaign
+            if (content.getNumberOfRequests() <= 0) {
+                this.contentChangedEventSender.fire(
+                        new EntityEvent<Content>(content));
+                this.endCampaignIfDepleted(content.getCampaign());
+            }
+        });
+
+        return remainingRequests;
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Ends the specified campaign if none of its contents has any remaining
+     * requests.
+     *
+     * @param   campaign    the campaign that will be checked.
+     */
+    private void endCampaignIfDepleted(Campaign campaign) {
+        for (Content campaignContent : campaign.getContents()) {
+            if (campaignContent.getNumberOfRequests() > 0) {
+                return;
+            }
+        }
+
+        this.campaignService.endCampaign(campaign);
+    }
+}
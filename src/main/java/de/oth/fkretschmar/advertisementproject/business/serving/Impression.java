@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.entities.billing.ImpressionRollup;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Represents a served content that still has to be counted in its
+ * {@link ImpressionRollup}.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@EqualsAndHashCode(exclude = "failedAttempts")
+@ToString
+public final class Impression {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the id of the content that has been served.
+     */
+    @Getter
+    private final Long contentId;
+
+    /**
+     * Stores the source responsible for the request of the content.
+     */
+    @Getter
+    private final String requestSource;
+
+    /**
+     * Stores the number of times writing the impression has failed.
+     */
+    @Getter
+    private final int failedAttempts;
+
+    // --------------- Public constructors ---------------
+
+    /**
+     * Creates a new instance of {@link Impression} that has not been tried
+     * to be written yet.
+     *
+     * @param   contentId       the id of the content that has been served.
+     * @param   requestSource   the source responsible for the request.
+     */
+    public Impression(Long contentId, String requestSource) {
+        this(contentId, requestSource, 0);
+    }
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Creates a copy of the impression whose writing has failed once more.
+     *
+     * @return  the copy of the impression.
+     */
+    public Impression withFailedAttempt() {
+        return new Impression(
+                this.contentId, this.requestSource, this.failedAttempts + 1);
+    }
+}
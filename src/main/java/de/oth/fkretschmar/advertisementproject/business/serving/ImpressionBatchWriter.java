@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+import de.oth.fkretschmar.advertisementproject.business.repositories.ContentRepository;
+import de.oth.fkretschmar.advertisementproject.business.repositories.ContentRequestRepository;
+import de.oth.fkretschmar.advertisementproject.business.repositories.ImpressionRollupRepository;
+import de.oth.fkretschmar.advertisementproject.entities.billing.ContentRequest;
+import de.oth.fkretschmar.advertisementproject.entities.billing.ImpressionRollup;
+import de.oth.fkretschmar.advertisementproject.entities.billing.ImpressionRollupKey;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.enterprise.context.Dependent;
+import javax.inject.Inject;
+import javax.transaction.Transactional;
+
+/**
+ * Writes a batch of {@link Impression} instances as increments of the hourly
+ * {@link ImpressionRollup} entities within a transaction of its own. Only a
+ * configurable sample of the impressions is kept as single 
+ * {@link ContentRequest} entities.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@Dependent
+public class ImpressionBatchWriter {
+
+    // --------------- Private static constants ---------------
+
+    /**
+     * Defines the order in which the rollups are incremented, so that 
+     * concurrent batches always lock the rows in the same order.
+     */
+    private static final Comparator<ImpressionRollupKey> ROLLUP_ORDER
+            = Comparator.comparing(ImpressionRollupKey::getContentId)
+                    .thenComparing(ImpressionRollupKey::getRequestSource)
+                    .thenComparing(ImpressionRollupKey::getHourBucket);
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the repository used to manage {@link Content} entites.
+     */
+    @Inject
+    private ContentRepository contentRepository;
+
+    /**
+     * Stores the repository used to manage {@link ContentRequest} entities.
+     */
+    @Inject
+    private ContentRequestRepository contentRequestRepository;
+
+    /**
+     * Stores the repository used to manage {@link ImpressionRollup} entities.
+     */
+    @Inject
+    private ImpressionRollupRepository impressionRollupRepository;
+
+    /**
+     * Stores the share of impressions between 0 and 1 that are additionally
+     * written as single {@link ContentRequest} entities.
+     */
+    @Inject
+    @ConfigurationValue(name = "impressions.rawSampleRate", defaultValue = "0")
+    private double rawSampleRate;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Writes the specified impressions. Either all impressions of the batch
+     * are written or none of them.
+     *
+     * @param   batch   the impressions that will be written.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void write(List<Impression> batch) {
+        // the impressions are counted in the hour they are written in, so
+        // that an hour is complete once it has passed; if the hour has been
+        // billed before the batch got its locks, the repository moves the
+        // increments to the current hour
+        LocalDateTime hourBucket 
+                = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        Map<ImpressionRollupKey, Long> increments 
+                = new TreeMap<ImpressionRollupKey, Long>(
+                        ImpressionBatchWriter.ROLLUP_ORDER);
+
+        for (Impression impression : batch) {
+            increments.merge(
+                    new ImpressionRollupKey(
+                            impression.getContentId(),
+                            impression.getRequestSource(),
+                            hourBucket),
+                    1L,
+                    Long::sum);
+
+            if (this.rawSampleRate > 0 
+                    && ThreadLocalRandom.current().nextDouble() 
+                            < this.rawSampleRate) {
+                // the sampled requests are only kept for analysis, they are
+                // never billed
+                this.contentRequestRepository.persist(
+                        ContentRequest.createContentRequestLog()
+                                .content(this.contentRepository.getReference(
+                                        impression.getContentId()))
+                                .requestSource(impression.getRequestSource())
+                                .build());
+            }
+        }
+
+        this.impressionRollupRepository.increment(increments);
+    }
+}
@@ -0,0 +1,460 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+import de.oth.fkretschmar.advertisementproject.entities.billing.ContentRequest;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.Asynchronous;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.SessionContext;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.Timeout;
+import javax.ejb.TimerConfig;
+import javax.ejb.TimerService;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.inject.Inject;
+import javax.persistence.EntityNotFoundException;
+import javax.validation.ConstraintViolationException;
+
+/**
+ * The write-behind buffer that logs served contents as {@link ContentRequest}
+ * entities without making the serving request wait for the database.
+ *
+ * Serving threads only append to a bounded lock-free queue. The buffer is
+ * flushed in batches by a background task as soon as a batch is full and
+ * periodically by a timer, so impressions never stay buffered for longer than
+ * the flush interval. If the buffer is full a synchronous request has to 
+ * flush it itself, which slows down serving instead of losing impressions,
+ * while an asynchronous request is rejected and only triggers a background 
+ * flush, so that it never waits for the database. The buffer is drained when
+ * the application shuts down.
+ *
+ * A batch that fails because of its data, e.g. an impression of a content
+ * that has been deleted, is split up until the impressions that cannot be
+ * written are isolated. These are logged and dropped, so that they do not 
+ * block the buffer. Any other failure puts the batch back into the buffer,
+ * until its impressions have failed too often and are split up as well.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class ImpressionWriter {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the maximum number of impressions that can be buffered.
+     */
+    @Inject
+    @ConfigurationValue(name = "impressions.bufferCapacity", defaultValue = "10000")
+    private int bufferCapacity;
+
+    /**
+     * Stores the number of impressions that are written in one transaction.
+     */
+    @Inject
+    @ConfigurationValue(name = "impressions.batchSize", defaultValue = "500")
+    private int batchSize;
+
+    /**
+     * Stores the maximum time in milliseconds between two flushes.
+     */
+    @Inject
+    @ConfigurationValue(name = "impressions.flushInterval", defaultValue = "1000")
+    private long flushInterval;
+
+    /**
+     * Stores the number of times writing an impression may fail before the
+     * failure is treated as caused by its data.
+     */
+    @Inject
+    @ConfigurationValue(name = "impressions.maxAttempts", defaultValue = "10")
+    private int maxAttempts;
+
+    /**
+     * Stores the impressions that have not been written yet.
+     */
+    private final Queue<Impression> buffer
+            = new ConcurrentLinkedQueue<Impression>();
+
+    /**
+     * Stores the number of buffered impressions including those that are
+     * about to be added. Counting separately is necessary because the size of
+     * the queue is not a constant time operation.
+     */
+    private final AtomicInteger bufferSize = new AtomicInteger();
+
+    /**
+     * Stores whether a background flush has been triggered and not yet
+     * finished.
+     */
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    /**
+     * Stores the lock that makes sure only one flush runs at a time.
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Stores the writer used to write a single batch.
+     */
+    @Inject
+    private ImpressionBatchWriter batchWriter;
+
+    /**
+     * Stores the logger to log information for this class.
+     */
+    @Inject
+    private Logger logger;
+
+    /**
+     * Stores the context used to call this bean asynchronously.
+     */
+    @Resource
+    private SessionContext sessionContext;
+
+    /**
+     * Stores the timer service used to flush the buffer periodically.
+     */
+    @Resource
+    private TimerService timerService;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Records that the specified content has been served.
+     *
+     * @param   contentId       the id of the content that has been served.
+     * @param   requestSource   the source responsible for the request.
+     * @return  {@code true} if the impression has been recorded, otherwise
+     *          {@code false}.
+     */
+    public boolean record(Long contentId, String requestSource) {
+        return this.recordAll(Collections.singletonList(
+                new Impression(contentId, requestSource)));
+    }
+
+
+    /**
+     * Records all of the specified impressions. If the buffer has no space
+     * left, the calling thread flushes the buffer before the impressions are
+     * added.
+     *
+     * @param   impressions the impressions that will be recorded.
+     * @return  {@code true} if the impressions have been recorded, 
+     *          {@code false} if the buffer is full and could not be flushed.
+     */
+    public boolean recordAll(Collection<Impression> impressions) {
+        return this.add(impressions, true);
+    }
+
+
+    /**
+     * Records that the specified content has been served without ever 
+     * waiting for the database. If the buffer has no space left, a flush is 
+     * triggered in the background and the impression is not recorded.
+     *
+     * @param   contentId       the id of the content that has been served.
+     * @param   requestSource   the source responsible for the request.
+     * @return  {@code true} if the impression has been recorded, 
+     *          {@code false} if the buffer is full.
+     */
+    public boolean tryRecord(Long contentId, String requestSource) {
+        return this.add(
+                Collections.singletonList(
+                        new Impression(contentId, requestSource)), 
+                false);
+    }
+
+
+    /**
+     * Removes an impression equal to the specified one from the buffer.
+     *
+     * @param   impression  the impression that will be removed.
+     * @return  {@code true} if the impression has been removed, 
+     *          {@code false} if it is not buffered anymore.
+     */
+    public boolean withdraw(Impression impression) {
+        if (!this.buffer.remove(impression)) {
+            return false;
+        }
+
+        this.bufferSize.decrementAndGet();
+        return true;
+    }
+
+
+    /**
+     * Writes all buffered impressions in batches. Batches that cannot be 
+     * written for now are put back into the buffer and end the flush.
+     *
+     * @return  {@code true} if the buffer has been written, otherwise
+     *          {@code false}.
+     */
+    public boolean flush() {
+        this.flushLock.lock();
+
+        try {
+            List<Impression> batch = this.pollBatch();
+
+            while (!batch.isEmpty()) {
+                if (!this.write(batch)) {
+                    return false;
+                }
+
+                batch = this.pollBatch();
+            }
+
+            return true;
+        } finally {
+            this.flushLock.unlock();
+        }
+    }
+
+
+    /**
+     * Writes all buffered impressions in the background.
+     */
+    @Asynchronous
+    public void flushAsynchronously() {
+        try {
+            this.flush();
+        } finally {
+            this.flushScheduled.set(false);
+        }
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Adds the specified impressions to the buffer and triggers a flush in 
+     * the background as soon as a batch is full.
+     *
+     * @param   impressions the impressions that will be recorded.
+     * @param   flushIfFull {@code true} if the calling thread flushes the 
+     *                      buffer if it has no space left, {@code false} if 
+     *                      the impressions are not recorded then.
+     * @return  {@code true} if the impressions have been recorded, otherwise
+     *          {@code false}.
+     */
+    private boolean add(
+            Collection<Impression> impressions, boolean flushIfFull) {
+        int count = impressions.size();
+        int size;
+
+        // reserve the space within the buffer before adding the impressions
+        while (true) {
+            size = this.bufferSize.get();
+
+            if (size == 0 || size + count <= this.bufferCapacity) {
+                if (this.bufferSize.compareAndSet(size, size + count)) {
+                    break;
+                }
+            } else if (!flushIfFull) {
+                this.scheduleFlush();
+                return false;
+            } else if (!this.flush()) {
+                return false;
+            }
+        }
+
+        this.buffer.addAll(impressions);
+
+        if (size + count >= this.batchSize) {
+            this.scheduleFlush();
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Starts the timer that flushes the buffer periodically.
+     */
+    @PostConstruct
+    private void initialize() {
+        this.timerService.createIntervalTimer(
+                this.flushInterval,
+                this.flushInterval,
+                new TimerConfig(null, false));
+    }
+
+
+    /**
+     * Writes all impressions that are still buffered before the application
+     * shuts down.
+     */
+    @PreDestroy
+    private void drain() {
+        if (!this.flush()) {
+            this.logger.log(
+                    Level.SEVERE,
+                    String.format(
+                            "%d impressions could not be written on shutdown.", 
+                            this.bufferSize.get()));
+        }
+    }
+
+
+    /**
+     * Gets called by the timer to flush the buffer periodically.
+     */
+    @Timeout
+    private void onTimeout() {
+        this.flush();
+    }
+
+
+    /**
+     * Triggers a flush in the background unless one is already running.
+     */
+    private void scheduleFlush() {
+        if (this.flushScheduled.compareAndSet(false, true)) {
+            this.sessionContext.getBusinessObject(ImpressionWriter.class)
+                    .flushAsynchronously();
+        }
+    }
+
+
+    /**
+     * Writes the specified batch. If the batch fails because of its data or
+     * after its impressions have failed too often, it is split in halves 
+     * that are written on their own, and a single impression that still 
+     * fails is dropped. Otherwise the batch is put back into the buffer.
+     *
+     * @param   batch   the impressions that will be written.
+     * @return  {@code true} if the batch has been written or dropped, 
+     *          {@code false} if some impressions have been put back.
+     */
+    private boolean write(List<Impression> batch) {
+        try {
+            this.batchWriter.write(batch);
+        } catch (RuntimeException ex) {
+            if (!ImpressionWriter.isCausedByData(ex) 
+                    && batch.stream().allMatch(impression -> 
+                            impression.getFailedAttempts() + 1 
+                                    < this.maxAttempts)) {
+                this.logger.log(
+                        Level.WARNING,
+                        String.format(
+                                "Writing %d impressions failed, they will be "
+                                        + "retried.", 
+                                batch.size()),
+                        ex);
+                batch.forEach(impression -> 
+                        this.buffer.add(impression.withFailedAttempt()));
+                return false;
+            }
+
+            if (batch.size() == 1) {
+                this.logger.log(
+                        Level.SEVERE,
+                        String.format(
+                                "Dropping %s, it cannot be written.", 
+                                batch.get(0)),
+                        ex);
+                this.bufferSize.decrementAndGet();
+                return true;
+            }
+
+            int half = batch.size() / 2;
+            boolean written = this.write(
+                    new ArrayList<Impression>(batch.subList(0, half)));
+
+            return this.write(new ArrayList<Impression>(
+                    batch.subList(half, batch.size()))) && written;
+        }
+
+        this.bufferSize.addAndGet(-batch.size());
+        return true;
+    }
+
+
+    /**
+     * Removes up to one batch of impressions from the buffer.
+     *
+     * @return  the removed impressions.
+     */
+    private List<Impression> pollBatch() {
+        List<Impression> batch = new ArrayList<Impression>(this.batchSize);
+        Impression impression;
+
+        while (batch.size() < this.batchSize
+                && (impression = this.buffer.poll()) != null) {
+            batch.add(impression);
+        }
+
+        return batch;
+    }
+
+    // --------------- Private static methods ---------------
+
+    /**
+     * Determines whether the specified exception has been caused by the data
+     * that has been written, so that writing the same data again will fail 
+     * again.
+     *
+     * @param   ex  the exception that has been thrown.
+     * @return  {@code true} if the exception has been caused by the data,
+     *          otherwise {@code false}.
+     */
+    private static boolean isCausedByData(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof EntityNotFoundException
+                    || cause instanceof ConstraintViolationException) {
+                return true;
+            }
+
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException) cause).getSQLState();
+
+                // class 22 is a data exception, class 23 an integrity 
+                // constraint violation
+                if (sqlState != null 
+                        && (sqlState.startsWith("22") 
+                                || sqlState.startsWith("23"))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+}
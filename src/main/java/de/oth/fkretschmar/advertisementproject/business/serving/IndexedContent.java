@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Represents the part of an active {@link Content} that is needed to match
+ * it against a request without accessing the database.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+final class IndexedContent {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the id of the indexed content.
+     */
+    @Getter
+    private final Long contentId;
+
+    /**
+     * Stores the mask of the target context of the content.
+     */
+    @Getter
+    private final TargetMask mask;
+
+    /**
+     * Stores the price per request in minor units of the currency.
+     */
+    @Getter
+    private final long pricePerRequest;
+
+    // --------------- Public static methods ---------------
+
+    /**
+     * Creates the indexed representation of the specified content.
+     *
+     * @param   content the content that will be indexed.
+     * @return  the indexed content.
+     */
+    public static IndexedContent of(Content content) {
+        return new IndexedContent(
+                content.getId(),
+                TargetMask.of(content.getContext()),
+                content.getPricePerRequestMinor());
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.business.services.web.ContentRequestResult;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Represents the response for a {@link Content} that has been rendered once
+ * and can be served as often as needed.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@AllArgsConstructor
+public final class RenderedContent {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the id of the rendered content.
+     */
+    @Getter
+    private final Long contentId;
+
+    /**
+     * Stores the result that is returned to the requester. 
+     */
+    @Getter
+    private final ContentRequestResult result;
+
+    /**
+     * Stores the result marshalled as XML document without XML declaration.
+     * The array is shared between all requests and must not be modified.
+     */
+    @Getter
+    private final byte[] xml;
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+import de.oth.fkretschmar.advertisementproject.business.annotation.ContentChanged;
+import de.oth.fkretschmar.advertisementproject.business.events.EntityEvent;
+import de.oth.fkretschmar.advertisementproject.business.repositories.ContentRepository;
+import de.oth.fkretschmar.advertisementproject.business.services.web.ContentRequestResult;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+
+import java.io.ByteArrayOutputStream;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.EJBException;
+import javax.ejb.Singleton;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+
+/**
+ * The bounded cache of the rendered responses of served {@link Content} 
+ * instances, so that serving a content neither has to load and deserialize 
+ * the content nor marshal the result.
+ *
+ * A response is rendered when its content is served for the first time and
+ * removed as soon as the content changes. A response that has been rendered
+ * while a content changed is not cached, since it might show the content 
+ * before the change.
+ *
+ * Serving a cached response only reads the concurrent map and stamps the 
+ * time of the access on the entry, so concurrent serves do not contend. Once
+ * the cache exceeds its capacity, the thread that added a response evicts 
+ * the least recently served responses until the cache is filled to the 
+ * eviction threshold, so that the cost of sorting the entries is shared by 
+ * many additions.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@Singleton
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class ResponseCache {
+
+    // --------------- Private static constants ---------------
+
+    /**
+     * Defines the share of the capacity that stays cached after an eviction.
+     */
+    private static final double EVICTION_THRESHOLD = 0.9;
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the maximum number of cached responses.
+     */
+    @Inject
+    @ConfigurationValue(name = "responses.cacheCapacity", defaultValue = "10000")
+    private int capacity;
+
+    /**
+     * Stores the cached responses mapped by the id of their content.
+     */
+    private final ConcurrentMap<Long, CachedResponse> responses
+            = new ConcurrentHashMap<Long, CachedResponse>();
+
+    /**
+     * Stores the lock that makes sure only one thread evicts responses at a 
+     * time.
+     */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Stores the number of content changes so far, which is used to detect
+     * that a content has changed while its response was rendered.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Stores the context used to marshal the results.
+     */
+    private JAXBContext jaxbContext;
+
+    /**
+     * Stores the repository used to manage {@link Content} entites.
+     */
+    @Inject
+    private ContentRepository contentRepository;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Gets the rendered response of the content with the specified id and
+     * renders it if it has not been cached yet.
+     *
+     * @param   contentId   the id of the content.
+     * @return  the rendered response or {@code null} if the content does not
+     *          exist.
+     */
+    public RenderedContent get(Long contentId) {
+        RenderedContent response = this.getIfPresent(contentId);
+
+        if (response != null) {
+            return response;
+        }
+
+        long renderedGeneration = this.generation.get();
+        Content content = this.contentRepository.find(contentId);
+
+        if (content == null) {
+            return null;
+        }
+
+        response = this.render(content);
+        CachedResponse cachedResponse = new CachedResponse(response);
+        this.responses.put(contentId, cachedResponse);
+
+        // a content that has changed since the rendering started might have 
+        // been loaded before the change; a change after this check removes 
+        // the response itself
+        if (renderedGeneration != this.generation.get()) {
+            this.responses.remove(contentId, cachedResponse);
+        } else if (this.responses.size() > this.capacity) {
+            this.evict();
+        }
+
+        return response;
+    }
+
+
+    /**
+     * Gets the rendered response of the content with the specified id if it
+     * has already been cached.
+     *
+     * @param   contentId   the id of the content.
+     * @return  the rendered response or {@code null} if it has not been
+     *          cached.
+     */
+    public RenderedContent getIfPresent(Long contentId) {
+        CachedResponse cachedResponse = this.responses.get(contentId);
+
+        if (cachedResponse == null) {
+            return null;
+        }
+
+        cachedResponse.lastAccess = System.nanoTime();
+        return cachedResponse.response;
+    }
+
+
+    /**
+     * Removes the rendered response of a {@link Content} as soon as the 
+     * transaction in which the content has been changed was successfully 
+     * committed.
+     *
+     * @param   event   the event containing the changed content.
+     */
+    public void onContentChanged(
+            @Observes(during = TransactionPhase.AFTER_SUCCESS)
+            @ContentChanged EntityEvent<Content> event) {
+        this.generation.incrementAndGet();
+        this.responses.remove(event.getEntity().getId());
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Evicts the least recently served responses until the cache is filled 
+     * to the eviction threshold. Nothing is done if another thread is already
+     * evicting responses.
+     */
+    private void evict() {
+        if (!this.evictionLock.tryLock()) {
+            return;
+        }
+
+        try {
+            int excess = this.responses.size() 
+                    - (int) (this.capacity * ResponseCache.EVICTION_THRESHOLD);
+
+            if (excess <= 0) {
+                return;
+            }
+
+            // take the age of every response once, since serving threads 
+            // keep stamping the entries while they are sorted, and compare
+            // the ages instead of the time stamps, which may overflow
+            long now = System.nanoTime();
+            List<Map.Entry<CachedResponse, Long>> ages
+                    = new ArrayList<Map.Entry<CachedResponse, Long>>(
+                            this.responses.size());
+
+            for (CachedResponse cachedResponse : this.responses.values()) {
+                ages.add(new AbstractMap.SimpleImmutableEntry<CachedResponse, Long>(
+                        cachedResponse, now - cachedResponse.lastAccess));
+            }
+
+            ages.sort(Map.Entry.<CachedResponse, Long>comparingByValue()
+                    .reversed());
+
+            for (int position = 0; 
+                    position < Math.min(excess, ages.size()); 
+                    position++) {
+                CachedResponse cachedResponse = ages.get(position).getKey();
+                this.responses.remove(
+                        cachedResponse.response.getContentId(), cachedResponse);
+            }
+        } finally {
+            this.evictionLock.unlock();
+        }
+    }
+
+
+    /**
+     * Creates the context used to marshal the results.
+     *
+     * @throws  JAXBException   if the context could not be created.
+     */
+    @PostConstruct
+    private void initialize() throws JAXBException {
+        this.jaxbContext = JAXBContext.newInstance(ContentRequestResult.class);
+    }
+
+
+    /**
+     * Renders the response for the specified content.
+     *
+     * @param   content the content that will be rendered.
+     * @return  the rendered response.
+     */
+    private RenderedContent render(Content content) {
+        ContentRequestResult result = ContentRequestResult.createContentDTO()
+                .format(content.getFormat())
+                .targetPage(content.getTargetUrl())
+                .type(content.getContentType())
+                .value(content.getValue()).build();
+
+        try {
+            ByteArrayOutputStream xml = new ByteArrayOutputStream();
+            Marshaller marshaller = this.jaxbContext.createMarshaller();
+            
+            // leave out the XML declaration, so that the document can also be
+            // embedded into the response for several contents
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+            marshaller.marshal(result, xml);
+
+            return new RenderedContent(content.getId(), result, xml.toByteArray());
+        } catch (JAXBException ex) {
+            throw new EJBException(ex);
+        }
+    }
+
+    // --------------- Private classes ---------------
+
+    /**
+     * Represents a cached response together with the time it has been served
+     * for the last time.
+     */
+    private static final class CachedResponse {
+
+        /**
+         * Stores the rendered response.
+         */
+        private final RenderedContent response;
+
+        /**
+         * Stores the value of {@link System#nanoTime()} at the last time the
+         * response has been served.
+         */
+        private volatile long lastAccess = System.nanoTime();
+
+        /**
+         * Creates a new instance of {@link CachedResponse} for the specified
+         * response.
+         *
+         * @param   response    the rendered response.
+         */
+        private CachedResponse(RenderedContent response) {
+            this.response = response;
+        }
+    }
+}
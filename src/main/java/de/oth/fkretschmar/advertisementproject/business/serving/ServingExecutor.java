@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedThreadFactory;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * The small pool of container managed threads that selects contents for
+ * asynchronous requests. Tasks running on this pool must not wait for the
+ * database: budgets are created by the {@link TargetingIndex} before a 
+ * content becomes selectable, a full impression buffer only triggers a 
+ * background flush and rejects the request, and uncached contents are 
+ * rendered on the container managed executor. Flushes that are triggered 
+ * from this pool are asynchronous EJB calls that do not block the caller.
+ *
+ * The pool is a plain CDI bean instead of an EJB, so that calls neither run
+ * in a container managed transaction nor wrap a rejection into an 
+ * {@link javax.ejb.EJBException}.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@ApplicationScoped
+public class ServingExecutor {
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the number of threads of the pool; 0 uses one thread per 
+     * available processor.
+     */
+    @Inject
+    @ConfigurationValue(name = "serving.threads", defaultValue = "0")
+    private int threads;
+
+    /**
+     * Stores the maximum number of tasks waiting for a thread.
+     */
+    @Inject
+    @ConfigurationValue(name = "serving.queueCapacity", defaultValue = "10000")
+    private int queueCapacity;
+
+    /**
+     * Stores the factory used to create container managed threads.
+     */
+    @Resource
+    private ManagedThreadFactory threadFactory;
+
+    /**
+     * Stores the pool that runs the tasks.
+     */
+    private ExecutorService executor;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Runs the specified task on the pool.
+     *
+     * @param   task    the task that will be run.
+     * @throws  RejectedExecutionException  if too many tasks are waiting.
+     */
+    public void execute(Runnable task) throws RejectedExecutionException {
+        this.executor.execute(task);
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Creates the pool.
+     */
+    @PostConstruct
+    private void initialize() {
+        int poolSize = this.threads > 0
+                ? this.threads
+                : Runtime.getRuntime().availableProcessors();
+
+        this.executor = new ThreadPoolExecutor(
+                poolSize,
+                poolSize,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(this.queueCapacity),
+                this.threadFactory,
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+
+    /**
+     * Shuts the pool down after the waiting tasks have been run.
+     */
+    @PreDestroy
+    private void shutdown() {
+        this.executor.shutdown();
+    }
+}
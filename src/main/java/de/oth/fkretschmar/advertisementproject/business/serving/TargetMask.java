@@ -0,0 +1,257 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetAge;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetContext;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetGender;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetMaritalStatus;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetPurposeOfUse;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Represents a {@link TargetContext} as one bitmask per target dimension,
+ * where every mask is the combination of the flag values of the targeted
+ * groups.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+@EqualsAndHashCode
+@ToString
+public final class TargetMask {
+
+    // --------------- Public static constants ---------------
+
+    /**
+     * Defines the number of dimensions a target context consists of.
+     */
+    public static final int DIMENSIONS = 4;
+
+    /**
+     * Defines the index of the age dimension.
+     */
+    public static final int AGE = 0;
+
+    /**
+     * Defines the index of the gender dimension.
+     */
+    public static final int GENDER = 1;
+
+    /**
+     * Defines the index of the marital status dimension.
+     */
+    public static final int MARITAL_STATUS = 2;
+
+    /**
+     * Defines the index of the purpose of use dimension.
+     */
+    public static final int PURPOSE_OF_USE = 3;
+
+    /**
+     * Defines the number of distinct keys a mask can have.
+     */
+    public static final int KEY_SPACE;
+
+    // --------------- Private static constants ---------------
+
+    /**
+     * Defines the number of bits every dimension occupies within a key.
+     */
+    private static final int[] KEY_WIDTHS = {
+        TargetAge.values().length,
+        TargetGender.values().length,
+        TargetMaritalStatus.values().length,
+        TargetPurposeOfUse.values().length
+    };
+
+    // --------------- Static initializer ---------------
+
+    static {
+        int keyWidth = 0;
+
+        for (int width : TargetMask.KEY_WIDTHS) {
+            keyWidth += width;
+        }
+
+        KEY_SPACE = 1 << keyWidth;
+    }
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the mask of the targeted age groups.
+     */
+    @Getter
+    private final int ageMask;
+
+    /**
+     * Stores the mask of the targeted gender groups.
+     */
+    @Getter
+    private final int genderMask;
+
+    /**
+     * Stores the mask of the targeted marital status groups.
+     */
+    @Getter
+    private final int maritalStatusMask;
+
+    /**
+     * Stores the mask of the targeted purpose of use groups.
+     */
+    @Getter
+    private final int purposeOfUseMask;
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Gets the mask of the specified dimension.
+     *
+     * @param   dimension   the index of the dimension.
+     * @return  the mask of the dimension.
+     */
+    public int get(int dimension) {
+        switch (dimension) {
+            case TargetMask.AGE:
+                return this.ageMask;
+            case TargetMask.GENDER:
+                return this.genderMask;
+            case TargetMask.MARITAL_STATUS:
+                return this.maritalStatusMask;
+            case TargetMask.PURPOSE_OF_USE:
+                return this.purposeOfUseMask;
+            default:
+                throw new IndexOutOfBoundsException(
+                        String.format("%d is not a valid dimension.", dimension));
+        }
+    }
+
+
+    /**
+     * Counts the groups over all dimensions that this mask shares with the
+     * specified mask.
+     *
+     * @param   other   the mask that is being compared with.
+     * @return  the number of matched groups.
+     */
+    public int matchesInGroups(TargetMask other) {
+        int matchesInGroups = 0;
+
+        for (int dimension = 0; dimension < TargetMask.DIMENSIONS; dimension++) {
+            matchesInGroups
+                    += Integer.bitCount(this.get(dimension) & other.get(dimension));
+        }
+
+        return matchesInGroups;
+    }
+
+    // --------------- Public static methods ---------------
+
+    /**
+     * Creates the mask for the specified {@link TargetContext}.
+     *
+     * @param   context the context that will be encoded.
+     * @return  the mask of the context.
+     */
+    public static TargetMask of(TargetContext context) {
+        return new TargetMask(
+                context.getAgeMask(),
+                context.getGenderMask(),
+                context.getMaritalStatusMask(),
+                context.getPurposeOfUseMask());
+    }
+
+
+    /**
+     * Creates the mask identified by the specified key.
+     *
+     * @param   key the key of the mask.
+     * @return  the mask.
+     * @see     #keyOf(TargetContext) 
+     */
+    public static TargetMask ofKey(int key) {
+        int[] masks = new int[TargetMask.DIMENSIONS];
+
+        for (int dimension = 0; dimension < TargetMask.DIMENSIONS; dimension++) {
+            int width = TargetMask.KEY_WIDTHS[dimension];
+
+            // the flag values of all target groups start at the second bit
+            masks[dimension] = (key & ((1 << width) - 1)) << 1;
+            key >>>= width;
+        }
+
+        return new TargetMask(
+                masks[TargetMask.AGE],
+                masks[TargetMask.GENDER],
+                masks[TargetMask.MARITAL_STATUS],
+                masks[TargetMask.PURPOSE_OF_USE]);
+    }
+
+
+    /**
+     * Computes the key of the mask of the specified {@link TargetContext}
+     * without creating the mask itself. The key uniquely identifies the mask
+     * within {@link #KEY_SPACE}.
+     *
+     * @param   context the context whose key will be computed.
+     * @return  the key.
+     */
+    public static int keyOf(TargetContext context) {
+        return TargetMask.toKey(
+                context.getAgeMask(),
+                context.getGenderMask(),
+                context.getMaritalStatusMask(),
+                context.getPurposeOfUseMask());
+    }
+
+    // --------------- Private static methods ---------------
+
+    /**
+     * Packs the specified masks into a single key.
+     *
+     * @param   ageMask             the mask of the targeted age groups.
+     * @param   genderMask          the mask of the targeted gender groups.
+     * @param   maritalStatusMask   the mask of the targeted marital status
+     *                              groups.
+     * @param   purposeOfUseMask    the mask of the targeted purpose of use 
+     *                              groups.
+     * @return  the key.
+     */
+    private static int toKey(
+            int ageMask,
+            int genderMask,
+            int maritalStatusMask,
+            int purposeOfUseMask) {
+        // the flag values of all target groups start at the second bit
+        int shift = TargetMask.KEY_WIDTHS[TargetMask.AGE];
+        int key = ageMask >>> 1;
+
+        key |= (genderMask >>> 1) << shift;
+        shift += TargetMask.KEY_WIDTHS[TargetMask.GENDER];
+
+        key |= (maritalStatusMask >>> 1) << shift;
+        shift += TargetMask.KEY_WIDTHS[TargetMask.MARITAL_STATUS];
+
+        return key | ((purposeOfUseMask >>> 1) << shift);
+    }
+}
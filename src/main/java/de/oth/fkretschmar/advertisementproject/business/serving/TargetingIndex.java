@@ -0,0 +1,636 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.business.serving;
+
+import de.oth.fkretschmar.advertisementproject.business.annotation.ConfigurationValue;
+import de.oth.fkretschmar.advertisementproject.business.annotation.ContentChanged;
+import de.oth.fkretschmar.advertisementproject.business.events.EntityEvent;
+import de.oth.fkretschmar.advertisementproject.business.repositories.ContentRepository;
+import de.oth.fkretschmar.advertisementproject.business.services.web.ContentSlot;
+import de.oth.fkretschmar.advertisementproject.entities.base.EntityState;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.CampaignState;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.ContentFormat;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.Logger;
+
+import javax.annotation.PostConstruct;
+import javax.ejb.ConcurrencyManagement;
+import javax.ejb.ConcurrencyManagementType;
+import javax.ejb.Singleton;
+import javax.ejb.Startup;
+import javax.ejb.TransactionAttribute;
+import javax.ejb.TransactionAttributeType;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+/**
+ * The in-memory index over all active {@link Content} instances that is used
+ * to find the contents matching a requested {@link TargetContext} without
+ * accessing the database.
+ *
+ * For every {@link ContentFormat} the index keeps an immutable snapshot that
+ * stores one bitmap per target group. A bit in such a bitmap is set if the
+ * content at the position of the bit targets the group. Snapshots are replaced
+ * as a whole whenever a content is added, changed or removed, so requests
+ * never have to wait for a change to finish. Every snapshot lazily caches the
+ * weighted selections of the recently requested target contexts in a bounded
+ * cache, so that picking a content only costs a lookup and a constant time
+ * sample as long as the set of candidates does not change.
+ *
+ * The {@link BudgetLedger} is given the remaining requests of every active 
+ * content before the content becomes selectable, so that neither of them has
+ * to load a content while serving.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+@Singleton
+@Startup
+@ConcurrencyManagement(ConcurrencyManagementType.BEAN)
+@TransactionAttribute(TransactionAttributeType.NOT_SUPPORTED)
+public class TargetingIndex {
+
+    // --------------- Private static constants ---------------
+
+    /**
+     * Defines how often a content is sampled before the contents that have
+     * to be excluded from a selection are skipped explicitly.
+     */
+    private static final int SAMPLE_ATTEMPTS = 3;
+
+    // --------------- Private fields ---------------
+
+    /**
+     * Stores the ledger that is given the budgets of the active contents.
+     */
+    @Inject
+    private BudgetLedger budgetLedger;
+
+    /**
+     * Stores the indexed contents of every format mapped by their id. Access
+     * has to be synchronized on the map itself.
+     */
+    private final Map<ContentFormat, Map<Long, IndexedContent>> contents
+            = new EnumMap<ContentFormat, Map<Long, IndexedContent>>(
+                    ContentFormat.class);
+
+    /**
+     * Stores the repository used to manage {@link Content} entites.
+     */
+    @Inject
+    private ContentRepository contentRepository;
+
+    /**
+     * Stores the maximum number of selections every snapshot caches.
+     */
+    @Inject
+    @ConfigurationValue(name = "targeting.selectionCacheSize", defaultValue = "1024")
+    private int selectionCacheSize;
+
+    /**
+     * Stores the logger to log information for this class.
+     */
+    @Inject
+    private Logger logger;
+
+    /**
+     * Stores the current snapshot of every format using the ordinal of the
+     * format as index.
+     */
+    private final AtomicReferenceArray<Snapshot> snapshots
+            = new AtomicReferenceArray<Snapshot>(ContentFormat.values().length);
+
+    // --------------- Public methods ---------------
+
+    /**
+     * Selects one of the contents of the specified format that match the
+     * provided {@link TargetContext}. The chance of a content to be selected
+     * is proportional to the product of its matched groups, its matches in
+     * these groups and its price per request.
+     *
+     * @param   context the context that specifies the targets for the requested
+     *                  content.
+     * @param   format  the format that the content is supposed to have.
+     * @return  the selected content or {@code null} if no content matches.
+     */
+    public MatchingContent selectContent(
+            TargetContext context, ContentFormat format) {
+        return this.snapshots.get(format.ordinal())
+                .select(TargetMask.keyOf(context)).sample();
+    }
+
+
+    /**
+     * Selects one of the contents of the specified format at random, 
+     * regardless of their target contexts.
+     *
+     * @param   format  the format that the content is supposed to have.
+     * @return  the id of the selected content or {@code null} if there is no
+     *          content of the format.
+     */
+    public Long selectRandomContent(ContentFormat format) {
+        return this.snapshots.get(format.ordinal()).random();
+    }
+
+
+    /**
+     * Selects one content for each of the specified slots. All slots are
+     * resolved against the same snapshot of their format.
+     *
+     * @param   slots       the slots for which contents are requested. Slots
+     *                      without a target context get a random content.
+     * @param   distinct    {@code true} if every content may only be selected
+     *                      for one slot, otherwise {@code false}.
+     * @return  the ids of the selected contents in the order of the slots, 
+     *          containing {@code null} for every slot without a content.
+     */
+    public List<Long> selectContents(List<ContentSlot> slots, boolean distinct) {
+        List<Long> contentIds = new ArrayList<Long>(slots.size());
+        Snapshot[] slotSnapshots = new Snapshot[ContentFormat.values().length];
+        Set<Long> excluded = new HashSet<Long>();
+
+        for (ContentSlot slot : slots) {
+            int format = slot.getFormat().ordinal();
+
+            if (slotSnapshots[format] == null) {
+                slotSnapshots[format] = this.snapshots.get(format);
+            }
+
+            TargetContext context = slot.getTargetContext();
+            Long contentId;
+
+            if (context == null) {
+                contentId = slotSnapshots[format].random(excluded);
+            } else {
+                MatchingContent match = slotSnapshots[format]
+                        .select(TargetMask.keyOf(context)).sample(excluded);
+                contentId = match == null ? null : match.getContentId();
+            }
+
+            contentIds.add(contentId);
+
+            if (distinct && contentId != null) {
+                excluded.add(contentId);
+            }
+        }
+
+        return contentIds;
+    }
+
+
+    /**
+     * Updates the index as soon as the transaction in which a {@link Content}
+     * has been changed was successfully committed.
+     *
+     * @param   event   the event containing the changed content.
+     */
+    public void onContentChanged(
+            @Observes(during = TransactionPhase.AFTER_SUCCESS)
+            @ContentChanged EntityEvent<Content> event) {
+        Content content = event.getEntity();
+        Map<Long, IndexedContent> formatContents
+                = this.contents.get(content.getFormat());
+
+        synchronized (formatContents) {
+            IndexedContent oldContent;
+
+            if (TargetingIndex.isActive(content)) {
+                this.budgetLedger.track(
+                        content.getId(), content.getNumberOfRequests());
+
+                IndexedContent newContent = IndexedContent.of(content);
+                oldContent = formatContents.put(content.getId(), newContent);
+
+                // only the remaining number of requests has changed which is
+                // not part of the index
+                if (newContent.equals(oldContent)) {
+                    return;
+                }
+            } else {
+                oldContent = formatContents.remove(content.getId());
+
+                if (oldContent == null) {
+                    return;
+                }
+            }
+
+            this.publish(content.getFormat(), formatContents);
+        }
+    }
+
+    // --------------- Private methods ---------------
+
+    /**
+     * Loads all active contents and builds the initial snapshots.
+     */
+    @PostConstruct
+    private void initialize() {
+        for (ContentFormat format : ContentFormat.values()) {
+            Map<Long, IndexedContent> formatContents
+                    = new HashMap<Long, IndexedContent>();
+
+            for (Content content : this.contentRepository.findAllActive(format)) {
+                this.budgetLedger.track(
+                        content.getId(), content.getNumberOfRequests());
+                formatContents.put(content.getId(), IndexedContent.of(content));
+            }
+
+            this.contents.put(format, formatContents);
+
+            synchronized (formatContents) {
+                this.publish(format, formatContents);
+            }
+        }
+    }
+
+
+    /**
+     * Builds and publishes a new snapshot for the specified format.
+     *
+     * @param   format          the format of the contents.
+     * @param   formatContents  all indexed contents of the format.
+     */
+    private void publish(
+            ContentFormat format, Map<Long, IndexedContent> formatContents) {
+        this.snapshots.set(
+                format.ordinal(),
+                new Snapshot(
+                        formatContents.values().toArray(
+                                new IndexedContent[formatContents.size()]),
+                        this.selectionCacheSize));
+
+        this.logger.fine(String.format(
+                "Published targeting snapshot for %s with %d contents.",
+                format,
+                formatContents.size()));
+    }
+
+    // --------------- Package-private static methods ---------------
+
+    /**
+     * Checks whether or not the specified content can currently be served.
+     *
+     * @param   content the content that will be checked.
+     * @return  {@code true} if the content is active, otherwise {@code false}.
+     */
+    static boolean isActive(Content content) {
+        return content.getState() != EntityState.DELETED
+                && content.getNumberOfRequests() > 0
+                && content.getCampaign() != null
+                && content.getCampaign().getCampaignState()
+                    == CampaignState.RUNNING;
+    }
+
+    // --------------- Private classes ---------------
+
+    /**
+     * Represents the immutable state of the index for a single format.
+     */
+    private static final class Snapshot {
+
+        /**
+         * Stores the indexed contents; the position of a content is its bit
+         * position within the bitmaps.
+         */
+        private final IndexedContent[] entries;
+
+        /**
+         * Stores the bitmaps of every group using the dimension and the bit
+         * of the flag value of the group as indices.
+         */
+        private final long[][][] bitmaps
+                = new long[TargetMask.DIMENSIONS][Integer.SIZE][];
+
+        /**
+         * Stores the number of words every bitmap consists of.
+         */
+        private final int words;
+
+        /**
+         * Stores the lazily created selections using the key of the requested
+         * mask modulo the size of the cache as index. A selection replaces 
+         * the selection of another key with the same index.
+         */
+        private final AtomicReferenceArray<Selection> selections;
+
+        /**
+         * Creates a new instance of {@link Snapshot} for the specified
+         * contents.
+         *
+         * @param   entries     the contents that will be indexed.
+         * @param   cacheSize   the maximum number of cached selections.
+         */
+        private Snapshot(IndexedContent[] entries, int cacheSize) {
+            this.entries = entries;
+            this.selections = new AtomicReferenceArray<Selection>(
+                    Math.max(1, Math.min(cacheSize, TargetMask.KEY_SPACE)));
+            this.words = (entries.length + Long.SIZE - 1) / Long.SIZE;
+
+            for (int position = 0; position < entries.length; position++) {
+                TargetMask mask = entries[position].getMask();
+
+                for (int dimension = 0;
+                        dimension < TargetMask.DIMENSIONS;
+                        dimension++) {
+                    int groups = mask.get(dimension);
+
+                    while (groups != 0) {
+                        int bit = Integer.numberOfTrailingZeros(groups);
+                        groups &= groups - 1;
+
+                        if (this.bitmaps[dimension][bit] == null) {
+                            this.bitmaps[dimension][bit] = new long[this.words];
+                        }
+
+                        this.bitmaps[dimension][bit][position / Long.SIZE]
+                                |= 1L << (position % Long.SIZE);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Picks the id of one of the indexed contents at random.
+         *
+         * @return  the id of the content or {@code null} if the snapshot is
+         *          empty.
+         */
+        private Long random() {
+            if (this.entries.length == 0) {
+                return null;
+            }
+
+            return this.entries[ThreadLocalRandom.current()
+                    .nextInt(this.entries.length)].getContentId();
+        }
+
+        /**
+         * Picks the id of one of the indexed contents that is not excluded at
+         * random.
+         *
+         * @param   excluded    the ids of the contents that must not be 
+         *                      picked.
+         * @return  the id of the content or {@code null} if there is no
+         *          content that is not excluded.
+         */
+        private Long random(Set<Long> excluded) {
+            for (int attempt = 0; 
+                    attempt < TargetingIndex.SAMPLE_ATTEMPTS; 
+                    attempt++) {
+                Long contentId = this.random();
+
+                if (contentId == null || !excluded.contains(contentId)) {
+                    return contentId;
+                }
+            }
+
+            // most of the contents are excluded: take the first remaining 
+            // content after a random position
+            int start = ThreadLocalRandom.current().nextInt(this.entries.length);
+
+            for (int offset = 0; offset < this.entries.length; offset++) {
+                Long contentId = this.entries[
+                        (start + offset) % this.entries.length].getContentId();
+
+                if (!excluded.contains(contentId)) {
+                    return contentId;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Gets the selection of the contents matching the mask with the
+         * specified key, creating it if it does not exist yet.
+         *
+         * @param   key the key of the mask of the requested target context.
+         * @return  the selection.
+         */
+        private Selection select(int key) {
+            int index = key % this.selections.length();
+            Selection selection = this.selections.get(index);
+
+            // concurrent requests might build the same selection twice which
+            // is harmless since both results are equal
+            if (selection == null || selection.key != key) {
+                selection = new Selection(
+                        key, this.match(TargetMask.ofKey(key)));
+                this.selections.set(index, selection);
+            }
+
+            return selection;
+        }
+
+        /**
+         * Retrieves all contents that share at least one group with the
+         * specified mask.
+         *
+         * @param   request the mask of the requested target context.
+         * @return  the matching contents.
+         */
+        private List<MatchingContent> match(TargetMask request) {
+            if (this.entries.length == 0) {
+                return Collections.emptyList();
+            }
+
+            // 1. combine the bitmaps of all requested groups of a dimension
+            long[][] dimensionHits = new long[TargetMask.DIMENSIONS][this.words];
+            long[] candidates = new long[this.words];
+
+            for (int dimension = 0; dimension < TargetMask.DIMENSIONS; dimension++) {
+                int groups = request.get(dimension);
+
+                while (groups != 0) {
+                    int bit = Integer.numberOfTrailingZeros(groups);
+                    groups &= groups - 1;
+                    long[] bitmap = this.bitmaps[dimension][bit];
+
+                    if (bitmap != null) {
+                        for (int word = 0; word < this.words; word++) {
+                            dimensionHits[dimension][word] |= bitmap[word];
+                        }
+                    }
+                }
+
+                for (int word = 0; word < this.words; word++) {
+                    candidates[word] |= dimensionHits[dimension][word];
+                }
+            }
+
+            // 2. count the matched dimensions and groups of every candidate
+            List<MatchingContent> matchingContents
+                    = new ArrayList<MatchingContent>();
+
+            for (int word = 0; word < this.words; word++) {
+                long candidateWord = candidates[word];
+
+                while (candidateWord != 0) {
+                    long candidateBit = Long.lowestOneBit(candidateWord);
+                    candidateWord &= candidateWord - 1;
+
+                    IndexedContent entry = this.entries[word * Long.SIZE
+                            + Long.numberOfTrailingZeros(candidateBit)];
+                    int groupMatches = 0;
+
+                    for (int dimension = 0;
+                            dimension < TargetMask.DIMENSIONS;
+                            dimension++) {
+                        if ((dimensionHits[dimension][word] & candidateBit) != 0) {
+                            groupMatches++;
+                        }
+                    }
+
+                    matchingContents.add(new MatchingContent(
+                            entry.getContentId(),
+                            entry.getPricePerRequest(),
+                            groupMatches,
+                            entry.getMask().matchesInGroups(request)));
+                }
+            }
+
+            return matchingContents;
+        }
+    }
+
+    /**
+     * Represents the contents matching a single target context together with
+     * the alias table used to pick one of them.
+     */
+    private static final class Selection {
+
+        /**
+         * Stores the key of the mask of the requested target context.
+         */
+        private final int key;
+
+        /**
+         * Stores the matching contents.
+         */
+        private final MatchingContent[] matches;
+
+        /**
+         * Stores the weight of every matching content.
+         */
+        private final double[] weights;
+
+        /**
+         * Stores the table used to sample the matching contents or
+         * {@code null} if there are no matching contents.
+         */
+        private final AliasTable table;
+
+        /**
+         * Creates a new instance of {@link Selection} for the specified
+         * matching contents.
+         *
+         * @param   key                 the key of the mask of the requested
+         *                              target context.
+         * @param   matchingContents    the contents that can be selected.
+         */
+        private Selection(int key, List<MatchingContent> matchingContents) {
+            this.key = key;
+            this.matches = matchingContents.toArray(
+                    new MatchingContent[matchingContents.size()]);
+
+            // mix the number of matches with the amount of money they pay
+            this.weights = new double[this.matches.length];
+
+            for (int position = 0; position < this.matches.length; position++) {
+                MatchingContent match = this.matches[position];
+                this.weights[position] = (double) match.getGroupMatches()
+                        * match.getMatchesInGroups()
+                        * match.getPricePerRequest();
+            }
+
+            this.table = this.matches.length > 0
+                    ? new AliasTable(this.weights)
+                    : null;
+        }
+
+        /**
+         * Picks one of the matching contents according to its weight.
+         *
+         * @return  the picked content or {@code null} if there are no 
+         *          matching contents.
+         */
+        private MatchingContent sample() {
+            return this.table != null
+                    ? this.matches[this.table.sample()]
+                    : null;
+        }
+
+        /**
+         * Picks one of the matching contents that is not excluded according 
+         * to its weight.
+         *
+         * @param   excluded    the ids of the contents that must not be 
+         *                      picked.
+         * @return  the picked content or {@code null} if there is no matching
+         *          content that is not excluded.
+         */
+        private MatchingContent sample(Set<Long> excluded) {
+            for (int attempt = 0; 
+                    attempt < TargetingIndex.SAMPLE_ATTEMPTS; 
+                    attempt++) {
+                MatchingContent match = this.sample();
+
+                if (match == null || !excluded.contains(match.getContentId())) {
+                    return match;
+                }
+            }
+
+            // most of the weight is excluded: walk the remaining contents
+            double remainingWeight = 0;
+
+            for (int position = 0; position < this.matches.length; position++) {
+                if (!excluded.contains(this.matches[position].getContentId())) {
+                    remainingWeight += this.weights[position];
+                }
+            }
+
+            double target 
+                    = ThreadLocalRandom.current().nextDouble() * remainingWeight;
+            MatchingContent picked = null;
+
+            for (int position = 0; position < this.matches.length; position++) {
+                if (!excluded.contains(this.matches[position].getContentId())) {
+                    picked = this.matches[position];
+                    target -= this.weights[position];
+
+                    if (target < 0) {
+                        break;
+                    }
+                }
+            }
+
+            return picked;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/* 
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * Migrates the total price of every bill, which has been computed from its 
+ * items whenever the bill was loaded, to columns of the bill. The total price
+ * includes the overdue charge of the bill.
+ *
+ * Has to be run once before the application is deployed.
+ *
+ * Author:  fkre
+ */
+ALTER TABLE T_BILL
+    ADD COLUMN TOTAL_PRICE_MINOR BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN TOTAL_PRICE_CURRENCY VARCHAR(3) NOT NULL DEFAULT 'EUR',
+    ADD COLUMN ITEM_COUNT INT NOT NULL DEFAULT 0;
+
+UPDATE  T_BILL b
+SET     b.ITEM_COUNT = (
+            SELECT  COUNT(*)
+            FROM    T_BILL_ITEM bi
+            WHERE   bi.BILL_ID = b.ID),
+        b.TOTAL_PRICE_MINOR = b.OVERDUE_CHARGE_MINOR + (
+            SELECT  COALESCE(SUM(bi.ITEM_PRICE_MINOR), 0)
+            FROM    T_BILL_ITEM bi
+            WHERE   bi.BILL_ID = b.ID),
+        b.TOTAL_PRICE_CURRENCY = COALESCE((
+            SELECT  MIN(bi.ITEM_PRICE_CURRENCY)
+            FROM    T_BILL_ITEM bi
+            WHERE   bi.BILL_ID = b.ID), b.OVERDUE_CHARGE_CURRENCY);
@@ -0,0 +1,56 @@
+/* 
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * Migrates the unbilled content requests, which have been stored as one row
+ * per request, to the hourly impression rollups. The requests are counted in
+ * the hour they have been generated in.
+ *
+ * Has to be run once before the application is deployed. The migrated 
+ * requests are deleted afterwards, so that they are neither billed nor 
+ * counted twice.
+ *
+ * Author:  fkre
+ */
+CREATE TABLE IF NOT EXISTS T_IMPRESSION_ROLLUP (
+    CONTENT_ID      VARCHAR(255) NOT NULL,
+    REQUEST_SOURCE  VARCHAR(255) NOT NULL,
+    HOUR_BUCKET     DATETIME NOT NULL,
+    REQUESTS        BIGINT NOT NULL,
+    BILL_ID         BIGINT,
+    ENTITY_STATE    VARCHAR(255),
+    PRIMARY KEY (CONTENT_ID, REQUEST_SOURCE, HOUR_BUCKET),
+    INDEX IDX_IMPRESSION_ROLLUP_BILL (BILL_ID),
+    FOREIGN KEY (CONTENT_ID) REFERENCES T_CONTENT (ID),
+    FOREIGN KEY (BILL_ID) REFERENCES T_BILL (ID)
+);
+
+INSERT INTO T_IMPRESSION_ROLLUP
+            (CONTENT_ID, REQUEST_SOURCE, HOUR_BUCKET, REQUESTS, ENTITY_STATE)
+SELECT      cr.content_ID,
+            cr.requestSource,
+            DATE_FORMAT(cr.GENDATE, '%Y-%m-%d %H:00:00'),
+            COUNT(*),
+            'CREATED'
+FROM        T_CONTENT_REQUEST cr
+WHERE       cr.bill_ID IS NULL
+GROUP BY    cr.content_ID, 
+            cr.requestSource, 
+            DATE_FORMAT(cr.GENDATE, '%Y-%m-%d %H:00:00')
+ON DUPLICATE KEY UPDATE REQUESTS = REQUESTS + VALUES(REQUESTS);
+
+DELETE FROM T_CONTENT_REQUEST
+WHERE       bill_ID IS NULL;
@@ -0,0 +1,64 @@
+/* 
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * Migrates the monetary amounts stored as German formatted strings 
+ * (e.g. '1.234,50EUR') to an amount in minor units of the currency and the
+ * ISO 4217 code of the currency. 
+ *
+ * Has to be run once before the application is deployed. The amounts have 
+ * always been printed with the number of decimal places of their currency, so
+ * removing the grouping and decimal separators yields the minor units.
+ *
+ * Author:  fkre
+ */
+ALTER TABLE T_CONTENT
+    ADD COLUMN PRICE_PER_REQUEST_MINOR BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN PRICE_PER_REQUEST_CURRENCY VARCHAR(3) NOT NULL DEFAULT 'EUR';
+
+UPDATE  T_CONTENT
+SET     PRICE_PER_REQUEST_MINOR = CAST(REPLACE(REPLACE(
+            LEFT(PRICE_PER_REQUEST, CHAR_LENGTH(PRICE_PER_REQUEST) - 3),
+            '.', ''), ',', '') AS SIGNED),
+        PRICE_PER_REQUEST_CURRENCY = RIGHT(PRICE_PER_REQUEST, 3);
+
+ALTER TABLE T_CONTENT DROP COLUMN PRICE_PER_REQUEST;
+
+
+ALTER TABLE T_BILL_ITEM
+    ADD COLUMN ITEM_PRICE_MINOR BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN ITEM_PRICE_CURRENCY VARCHAR(3) NOT NULL DEFAULT 'EUR';
+
+UPDATE  T_BILL_ITEM
+SET     ITEM_PRICE_MINOR = CAST(REPLACE(REPLACE(
+            LEFT(ITEM_PRICE, CHAR_LENGTH(ITEM_PRICE) - 3),
+            '.', ''), ',', '') AS SIGNED),
+        ITEM_PRICE_CURRENCY = RIGHT(ITEM_PRICE, 3);
+
+ALTER TABLE T_BILL_ITEM DROP COLUMN ITEM_PRICE;
+
+
+ALTER TABLE T_BILL
+    ADD COLUMN OVERDUE_CHARGE_MINOR BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN OVERDUE_CHARGE_CURRENCY VARCHAR(3) NOT NULL DEFAULT 'EUR';
+
+UPDATE  T_BILL
+SET     OVERDUE_CHARGE_MINOR = CAST(REPLACE(REPLACE(
+            LEFT(OVERDUE_CHARGE, CHAR_LENGTH(OVERDUE_CHARGE) - 3),
+            '.', ''), ',', '') AS SIGNED),
+        OVERDUE_CHARGE_CURRENCY = RIGHT(OVERDUE_CHARGE, 3);
+
+ALTER TABLE T_BILL DROP COLUMN OVERDUE_CHARGE;
@@ -0,0 +1,80 @@
+/* 
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * Migrates the target groups of every target context from the four element
+ * collection tables to one bitmask column per dimension. The bit of every
+ * group is the flag value of the corresponding enum constant.
+ *
+ * Has to be run once before the application is deployed.
+ *
+ * Author:  fkre
+ */
+ALTER TABLE T_TARGET_CONTEXT
+    ADD COLUMN AGE_MASK INT NOT NULL DEFAULT 0,
+    ADD COLUMN GENDER_MASK INT NOT NULL DEFAULT 0,
+    ADD COLUMN MARITAL_STATUS_MASK INT NOT NULL DEFAULT 0,
+    ADD COLUMN PURPOSE_OF_USE_MASK INT NOT NULL DEFAULT 0;
+
+UPDATE  T_TARGET_CONTEXT tc
+SET     tc.AGE_MASK = (
+            SELECT  COALESCE(BIT_OR(CASE ta.AGE
+                        WHEN 'ADULTS'   THEN 1 << 1
+                        WHEN 'CHILDREN' THEN 1 << 2
+                        WHEN 'SENIORS'  THEN 1 << 3
+                        WHEN 'YOUTH'    THEN 1 << 4
+                    END), 0)
+            FROM    T_TARGET_AGE ta
+            WHERE   ta.CONTEXT_ID = tc.ID),
+        tc.GENDER_MASK = (
+            SELECT  COALESCE(BIT_OR(CASE tg.GENDER
+                        WHEN 'FEMALE'   THEN 1 << 1
+                        WHEN 'MALE'     THEN 1 << 2
+                        WHEN 'OTHER'    THEN 1 << 3
+                    END), 0)
+            FROM    T_TARGET_GENDER tg
+            WHERE   tg.CONTEXT_ID = tc.ID),
+        tc.MARITAL_STATUS_MASK = (
+            SELECT  COALESCE(BIT_OR(CASE tm.MARITAL_STATUS
+                        WHEN 'DIVORCED'         THEN 1 << 1
+                        WHEN 'IN_RELATIONSHIP'  THEN 1 << 2
+                        WHEN 'MARRIED'          THEN 1 << 3
+                        WHEN 'SINGLE'           THEN 1 << 4
+                        WHEN 'WIDOWED'          THEN 1 << 5
+                    END), 0)
+            FROM    T_TARGET_MARITAL_STATUS tm
+            WHERE   tm.CONTEXT_ID = tc.ID),
+        tc.PURPOSE_OF_USE_MASK = (
+            SELECT  COALESCE(BIT_OR(CASE tp.PURPOSE_OF_USE
+                        WHEN 'BUSINESS' THEN 1 << 1
+                        WHEN 'PRIVATE'  THEN 1 << 2
+                    END), 0)
+            FROM    T_TARGET_PURPOSE_OF_USE tp
+            WHERE   tp.CONTEXT_ID = tc.ID);
+
+CREATE INDEX IDX_TARGET_CONTEXT_AGE 
+    ON T_TARGET_CONTEXT (AGE_MASK);
+CREATE INDEX IDX_TARGET_CONTEXT_GENDER 
+    ON T_TARGET_CONTEXT (GENDER_MASK);
+CREATE INDEX IDX_TARGET_CONTEXT_MARITAL_STATUS 
+    ON T_TARGET_CONTEXT (MARITAL_STATUS_MASK);
+CREATE INDEX IDX_TARGET_CONTEXT_PURPOSE_OF_USE 
+    ON T_TARGET_CONTEXT (PURPOSE_OF_USE_MASK);
+
+DROP TABLE T_TARGET_AGE;
+DROP TABLE T_TARGET_GENDER;
+DROP TABLE T_TARGET_MARITAL_STATUS;
+DROP TABLE T_TARGET_PURPOSE_OF_USE;
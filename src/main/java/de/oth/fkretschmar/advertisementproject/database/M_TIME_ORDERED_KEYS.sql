@@ -0,0 +1,126 @@
+/* 
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * Migrates the random string ids of contents and accounts to the time ordered
+ * numeric ids generated by TimeOrderedIdGenerator. Every existing row gets the
+ * id of node 0 for the millisecond it has been generated in, rows generated 
+ * in the same millisecond are numbered in the order of their old ids. The 
+ * script fails on a CHECK constraint if more than 4096 rows have been 
+ * generated in one millisecond, as their sequence numbers would overflow into
+ * the bits of the node.
+ *
+ * Has to be run once before the application is deployed and requires MySQL 
+ * 8.0.16 or later for window functions and enforced CHECK constraints. The 
+ * ids are rewritten in place while the foreign key checks are disabled, 
+ * afterwards the columns of the ids and of all foreign keys referencing them 
+ * are changed to BIGINT. 1483228800000 is the epoch of the generator 
+ * (2017-01-01 UTC), 22 the number of bits of the node and sequence number and
+ * 4096 the number of sequence numbers per millisecond.
+ *
+ * Author:  fkre
+ */
+SET FOREIGN_KEY_CHECKS = 0;
+
+-- --------------- Contents ---------------
+
+CREATE TEMPORARY TABLE M_CONTENT_ID (
+    OLD_ID      VARCHAR(255) NOT NULL PRIMARY KEY,
+    MILLIS      BIGINT NOT NULL,
+    SEQUENCE    BIGINT NOT NULL,
+    NEW_ID      BIGINT AS ((MILLIS << 22) | SEQUENCE) STORED NOT NULL UNIQUE,
+    CONSTRAINT CHK_M_CONTENT_ID_SEQUENCE CHECK (SEQUENCE < 4096)
+);
+
+INSERT INTO M_CONTENT_ID (OLD_ID, MILLIS, SEQUENCE)
+SELECT      c.ID,
+            c.MILLIS,
+            ROW_NUMBER() OVER (PARTITION BY c.MILLIS ORDER BY c.ID) - 1
+FROM        (
+                SELECT  ID, 
+                        FLOOR(UNIX_TIMESTAMP(GENDATE) * 1000) 
+                            - 1483228800000 AS MILLIS
+                FROM    T_CONTENT
+            ) c;
+
+UPDATE      T_CONTENT c
+JOIN        M_CONTENT_ID m ON m.OLD_ID = c.ID
+SET         c.ID = m.NEW_ID;
+
+UPDATE      T_CONTENT_REQUEST cr
+JOIN        M_CONTENT_ID m ON m.OLD_ID = cr.content_ID
+SET         cr.content_ID = m.NEW_ID;
+
+UPDATE      T_BILL_ITEM bi
+JOIN        M_CONTENT_ID m ON m.OLD_ID = bi.content_ID
+SET         bi.content_ID = m.NEW_ID;
+
+UPDATE      T_IMPRESSION_ROLLUP ir
+JOIN        M_CONTENT_ID m ON m.OLD_ID = ir.CONTENT_ID
+SET         ir.CONTENT_ID = m.NEW_ID;
+
+ALTER TABLE T_CONTENT MODIFY ID BIGINT NOT NULL;
+ALTER TABLE T_CONTENT_REQUEST MODIFY content_ID BIGINT NOT NULL;
+ALTER TABLE T_BILL_ITEM MODIFY content_ID BIGINT NOT NULL;
+ALTER TABLE T_IMPRESSION_ROLLUP MODIFY CONTENT_ID BIGINT NOT NULL;
+
+DROP TEMPORARY TABLE M_CONTENT_ID;
+
+-- --------------- Accounts ---------------
+
+CREATE TEMPORARY TABLE M_ACCOUNT_ID (
+    OLD_ID      VARCHAR(255) NOT NULL PRIMARY KEY,
+    MILLIS      BIGINT NOT NULL,
+    SEQUENCE    BIGINT NOT NULL,
+    NEW_ID      BIGINT AS ((MILLIS << 22) | SEQUENCE) STORED NOT NULL UNIQUE,
+    CONSTRAINT CHK_M_ACCOUNT_ID_SEQUENCE CHECK (SEQUENCE < 4096)
+);
+
+INSERT INTO M_ACCOUNT_ID (OLD_ID, MILLIS, SEQUENCE)
+SELECT      a.ID,
+            a.MILLIS,
+            ROW_NUMBER() OVER (PARTITION BY a.MILLIS ORDER BY a.ID) - 1
+FROM        (
+                SELECT  ID, 
+                        FLOOR(UNIX_TIMESTAMP(GENDATE) * 1000) 
+                            - 1483228800000 AS MILLIS
+                FROM    T_ACCOUNT
+            ) a;
+
+UPDATE      T_ACCOUNT a
+JOIN        M_ACCOUNT_ID m ON m.OLD_ID = a.ID
+SET         a.ID = m.NEW_ID;
+
+UPDATE      T_BANK_ACCOUNT ba
+JOIN        M_ACCOUNT_ID m ON m.OLD_ID = ba.ID
+SET         ba.ID = m.NEW_ID;
+
+UPDATE      T_PAYPAL_ACCOUNT pa
+JOIN        M_ACCOUNT_ID m ON m.OLD_ID = pa.ID
+SET         pa.ID = m.NEW_ID;
+
+UPDATE      T_CAMPAIGN c
+JOIN        M_ACCOUNT_ID m ON m.OLD_ID = c.PAYMENT_ACCOUNT_ID
+SET         c.PAYMENT_ACCOUNT_ID = m.NEW_ID;
+
+ALTER TABLE T_ACCOUNT MODIFY ID BIGINT NOT NULL;
+ALTER TABLE T_BANK_ACCOUNT MODIFY ID BIGINT NOT NULL;
+ALTER TABLE T_PAYPAL_ACCOUNT MODIFY ID BIGINT NOT NULL;
+ALTER TABLE T_CAMPAIGN MODIFY PAYMENT_ACCOUNT_ID BIGINT;
+
+DROP TEMPORARY TABLE M_ACCOUNT_ID;
+
+SET FOREIGN_KEY_CHECKS = 1;
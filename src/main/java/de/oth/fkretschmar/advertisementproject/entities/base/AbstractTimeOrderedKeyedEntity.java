@@ -1,5 +1,5 @@
 /*
- * Copyright (C) 2016 fkre
+ * Copyright (C) 2017 fkre
  *
  * This program is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as published by
@@ -16,7 +16,6 @@
  */
 package de.oth.fkretschmar.advertisementproject.entities.base;
 
-import java.util.UUID;
 import javax.persistence.Column;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
@@ -27,7 +26,7 @@ import lombok.NonNull;
 import lombok.ToString;
 
 /**
- * Represents an entity that is keyed by a uniqe string value.
+ * Represents an entity that is keyed by a unique, time ordered numeric value.
  * 
  * NOTE: This type of entity is used instead of AbstractAutoGenerateKeyedEntity
  *       when I need the ID of the entity to be unique BEFORE saving it for the
@@ -38,14 +37,18 @@ import lombok.ToString;
  *                    campaign and its contents after the user explicitly pushes
  *                    the save button. So Contents (which are stored in a set) 
  *                    have to have a unique ID before they ever get saved.
+ *       Because the IDs grow with the time of their creation, new rows are 
+ *       appended to the end of the primary key index instead of being 
+ *       scattered all over it.
  * 
  * @author  fkre    Floyd Kretschmar
+ * @see     TimeOrderedIdGenerator
  */
 @MappedSuperclass
 @EqualsAndHashCode(callSuper = true)
 @ToString(callSuper = true)
-public abstract class AbstractRandomStringKeyedEntity 
-        extends AbstractManagedEntity<String> {   
+public abstract class AbstractTimeOrderedKeyedEntity 
+        extends AbstractManagedEntity<Long> {   
     
     // --------------- Private fields ---------------
     
@@ -56,14 +59,14 @@ public abstract class AbstractRandomStringKeyedEntity
     @NonNull
     @Column(name = "ID", nullable = false)
     @Getter
-    private String id;
+    private Long id;
     
     // --------------- Protected constructors ---------------
     
     /**
-     * Creates a new instance of {@link AbstractRandomStringKeyedEntity}.
+     * Creates a new instance of {@link AbstractTimeOrderedKeyedEntity}.
      */
-    protected AbstractRandomStringKeyedEntity() {
-        this.id = UUID.randomUUID().toString();
+    protected AbstractTimeOrderedKeyedEntity() {
+        this.id = TimeOrderedIdGenerator.next();
     }
 }
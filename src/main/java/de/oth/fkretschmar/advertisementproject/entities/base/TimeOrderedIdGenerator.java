@@ -0,0 +1,126 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.entities.base;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Generates unique 64 bit ids that grow with the time of their generation.
+ * Every id consists of the milliseconds since {@link #EPOCH} (41 bits), the
+ * number of the node that generated it (10 bits) and a sequence number 
+ * within the millisecond (12 bits). The node is configured using the system 
+ * property {@code webvert.ids.node}, it has to be unique for every 
+ * application server sharing the same database.
+ *
+ * @author fkre Floyd Kretschmar
+ */
+public final class TimeOrderedIdGenerator {
+
+    // --------------- Public static constants ---------------
+
+    /**
+     * Defines the point in time from which the milliseconds of an id are 
+     * counted.
+     */
+    public static final long EPOCH = LocalDateTime.of(2017, 1, 1, 0, 0)
+            .toInstant(ZoneOffset.UTC)
+            .toEpochMilli();
+
+    /**
+     * Defines the number of bits of the sequence number.
+     */
+    public static final int SEQUENCE_BITS = 12;
+
+    /**
+     * Defines the number of bits of the node number.
+     */
+    public static final int NODE_BITS = 10;
+
+    // --------------- Private static constants ---------------
+
+    /**
+     * Defines the mask of the sequence number.
+     */
+    private static final long SEQUENCE_MASK 
+            = (1L << TimeOrderedIdGenerator.SEQUENCE_BITS) - 1;
+
+    /**
+     * Defines the node number shifted to its position within an id.
+     */
+    private static final long NODE = (Integer.getInteger("webvert.ids.node", 0)
+            & ((1L << TimeOrderedIdGenerator.NODE_BITS) - 1))
+            << TimeOrderedIdGenerator.SEQUENCE_BITS;
+
+    // --------------- Private static fields ---------------
+
+    /**
+     * Stores the millisecond of the last generated id.
+     */
+    private static long lastMillis = -1;
+
+    /**
+     * Stores the sequence number of the last generated id.
+     */
+    private static long sequence;
+
+    // --------------- Private constructors ---------------
+
+    /**
+     * Prevents the creation of instances of {@link TimeOrderedIdGenerator}.
+     */
+    private TimeOrderedIdGenerator() {
+    }
+
+    // --------------- Public static methods ---------------
+
+    /**
+     * Generates the next id, which is greater than all ids that have been 
+     * generated by this node before.
+     *
+     * @return  the generated id.
+     */
+    public static synchronized long next() {
+        // a clock that has been turned back must not produce smaller ids, so
+        // keep counting within the last millisecond instead
+        long millis = Math.max(
+                Instant.now().toEpochMilli() - TimeOrderedIdGenerator.EPOCH, 
+                TimeOrderedIdGenerator.lastMillis);
+
+        if (millis == TimeOrderedIdGenerator.lastMillis) {
+            TimeOrderedIdGenerator.sequence 
+                    = (TimeOrderedIdGenerator.sequence + 1) 
+                    & TimeOrderedIdGenerator.SEQUENCE_MASK;
+            
+            // the sequence of the millisecond is exhausted, so borrow the 
+            // next millisecond
+            if (TimeOrderedIdGenerator.sequence == 0) {
+                millis++;
+            }
+        } else {
+            TimeOrderedIdGenerator.sequence = 0;
+        }
+
+        TimeOrderedIdGenerator.lastMillis = millis;
+
+        return (millis << (TimeOrderedIdGenerator.NODE_BITS 
+                        + TimeOrderedIdGenerator.SEQUENCE_BITS))
+                | TimeOrderedIdGenerator.NODE
+                | TimeOrderedIdGenerator.sequence;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.entities.base.converter;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import org.joda.money.CurrencyUnit;
+
+/**
+ * Converts a provided currency unit to its ISO 4217 code when working with 
+ * JPA. Currency units are cached by joda-money, so no conversion allocates.
+ *
+ * @author fkre
+ */
+@Converter
+public class CurrencyUnitAttributeConverter 
+        implements AttributeConverter<CurrencyUnit, String> {
+
+    /**
+     * Converts a provided {@link CurrencyUnit} to a {@link String} that will 
+     * be used within for storage within the database.
+     * 
+     * @param   currency    the {@link CurrencyUnit} that will be converted.
+     * @return              the converted {@link String}.
+     */
+    @Override
+    public String convertToDatabaseColumn(CurrencyUnit currency) {
+        return (currency == null ? null : currency.getCode());
+    }
+
+    /**
+     * Converts a provided {@link String} to a {@link CurrencyUnit} that will 
+     * be used within the java program.
+     * 
+     * @param   currencyCode    the {@link String} that will be converted.
+     * @return  the converted {@link CurrencyUnit}
+     */
+    @Override
+    public CurrencyUnit convertToEntityAttribute(String currencyCode) {
+        return (currencyCode == null ? null : CurrencyUnit.of(currencyCode));
+    }
+}
@@ -17,7 +17,8 @@
 package de.oth.fkretschmar.advertisementproject.entities.billing;
 
 
-import de.oth.fkretschmar.advertisementproject.entities.base.AbstractRandomStringKeyedEntity;
+import de.oth.fkretschmar.advertisementproject.entities.base.AbstractTimeOrderedKeyedEntity;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
@@ -32,9 +33,10 @@ import lombok.ToString;
  * @author fkre
  */
 @Entity(name = "T_ACCOUNT")
+@Cacheable
 @Inheritance(strategy = InheritanceType.JOINED)
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(callSuper = true)
-public abstract class Account extends AbstractRandomStringKeyedEntity {   
+public abstract class Account extends AbstractTimeOrderedKeyedEntity {   
     
 }
@@ -19,18 +19,21 @@ package de.oth.fkretschmar.advertisementproject.entities.billing;
 import de.oth.fkretschmar.advertisementproject.entities.exceptions.BuilderValidationException;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.Campaign;
 import de.oth.fkretschmar.advertisementproject.entities.base.AbstractAutoGenerateKeyedEntity;
-import de.oth.fkretschmar.advertisementproject.entities.base.converter.MoneyAttributeConverter;
+import de.oth.fkretschmar.advertisementproject.entities.base.converter.CurrencyUnitAttributeConverter;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import javax.persistence.Column;
 import javax.persistence.Convert;
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
-import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 import lombok.AccessLevel;
 import lombok.Builder;
@@ -47,9 +50,22 @@ import org.joda.money.Money;
  * @author fkre
  */
 @Entity(name = "T_BILL")
+@NamedEntityGraph(
+        name = Bill.GRAPH_DETAIL, 
+        attributeNodes = @NamedAttributeNode("items"))
 @NoArgsConstructor(access = AccessLevel.PACKAGE)
-@ToString(callSuper = true)
+@ToString(callSuper = true, exclude = "items")
 public class Bill extends AbstractAutoGenerateKeyedEntity {
+    
+    // --------------- Static constants ---------------
+    
+    /**
+     * Defines the name of the entity graph that loads the items of a bill to
+     * display its details.
+     */
+    public static final String GRAPH_DETAIL = "Bill.detail";
+    
+    // --------------- Private fields ---------------
 
     /**
      * Stores the campaign for which this bill applies.
@@ -70,27 +86,58 @@ public class Bill extends AbstractAutoGenerateKeyedEntity {
     private boolean overdue;
     
     /**
-     * Stores the amount of money being charged because the bill is overdue.
+     * Stores the state of the payment of the bill.
+     */
+    @Column(name = "PAYMENT_STATE")
+    @Enumerated(EnumType.STRING)
+    @Getter
+    @Setter
+    private PaymentState paymentState = PaymentState.PENDING;
+    
+    /**
+     * Stores the amount of money in minor units of its currency being charged 
+     * because the bill is overdue.
      */
-    @Column(name = "OVERDUE_CHARGE", nullable = false)
+    @Column(name = "OVERDUE_CHARGE_MINOR", nullable = false)
     @Getter
-    @Convert(converter = MoneyAttributeConverter.class)
-    private Money overdueCharge = Money.of(CurrencyUnit.EUR, 0);
+    private long overdueChargeMinor;
+
+    /**
+     * Stores the currency of the overdue charge.
+     */
+    @Column(name = "OVERDUE_CHARGE_CURRENCY", nullable = false, length = 3)
+    @Convert(converter = CurrencyUnitAttributeConverter.class)
+    private CurrencyUnit overdueChargeCurrency = CurrencyUnit.EUR;
 
     /**
      * Stores the items that make up the bill.
      */
     @NotNull
-    @OneToMany(fetch = FetchType.EAGER)
+    @OneToMany(fetch = FetchType.LAZY)
     @JoinColumn(name = "BILL_ID", referencedColumnName = "ID")
     private final Collection<BillItem> items = new ArrayList<BillItem>();
 
     /**
-     * Stores the total price of the bill.
+     * Stores the total price of the bill in minor units of its currency, 
+     * which includes the overdue charge.
      */
-    @Transient
+    @Column(name = "TOTAL_PRICE_MINOR", nullable = false)
     @Getter
-    private Money totalPrice;
+    private long totalPriceMinor;
+
+    /**
+     * Stores the currency of the total price.
+     */
+    @Column(name = "TOTAL_PRICE_CURRENCY", nullable = false, length = 3)
+    @Convert(converter = CurrencyUnitAttributeConverter.class)
+    private CurrencyUnit totalPriceCurrency = CurrencyUnit.EUR;
+
+    /**
+     * Stores the number of items that make up the bill.
+     */
+    @Column(name = "ITEM_COUNT", nullable = false)
+    @Getter
+    private int itemCount;
 
     // --------------- Private constructors ---------------
     /**
@@ -118,17 +165,36 @@ public class Bill extends AbstractAutoGenerateKeyedEntity {
         return Collections.unmodifiableCollection(this.items);
     }
     
+    /**
+     * Gets the total price of the bill including the overdue charge.
+     * 
+     * @return the total price of the bill.
+     */
+    public Money getTotalPrice() {
+        return Money.ofMinor(this.totalPriceCurrency, this.totalPriceMinor);
+    }
+    
+    /**
+     * Gets the the amount of money being charged because the bill is overdue.
+     * 
+     * @return the overdue charge for the bill.
+     */
+    public Money getOverdueCharge() {
+        return Money.ofMinor(this.overdueChargeCurrency, this.overdueChargeMinor);
+    }
+    
     /**
      * Sets the the amount of money being charged because the bill is overdue.
      * @param overdueCharge     the overdue charge for the bill.
      */
     public void setOverdueCharge(Money overdueCharge) {
-        if (this.totalPrice != null && this.overdueCharge != null) {
-            this.totalPrice = this.totalPrice.minus(this.overdueCharge);
+        if (this.overdueChargeMinor != 0) {
+            this.setTotalPrice(this.getTotalPrice().minus(this.getOverdueCharge()));
         }
         
         this.addToTotalPrice(overdueCharge);
-        this.overdueCharge = overdueCharge;
+        this.overdueChargeMinor = overdueCharge.getAmountMinorLong();
+        this.overdueChargeCurrency = overdueCharge.getCurrencyUnit();
     }
 
     // --------------- Public methods ---------------
@@ -140,6 +206,7 @@ public class Bill extends AbstractAutoGenerateKeyedEntity {
      */
     public boolean addItem(BillItem item) {
         if (this.items.add(item)) {
+            this.itemCount++;
             this.addToTotalPrice(item.getItemPrice());
             return false;
         }
@@ -147,32 +214,30 @@ public class Bill extends AbstractAutoGenerateKeyedEntity {
         return false;
     }
 
-    // --------------- Protected methods ---------------
+    // --------------- Private methods ---------------
     /**
-     * Performs the work of initializing the total price when loading the bill
-     * from the database.
+     * Adds the specified price to the total price of the bill. If nothing has
+     * been added to the total price yet, the total price will take on the 
+     * currency of the specified price.
+     *
+     * @param price the price that will be added.
      */
-    @Override
-    protected void postLoad() {
-        for (BillItem item : this.items) {
-            this.addToTotalPrice(item.getItemPrice());
+    private void addToTotalPrice(Money price) {
+        if (this.totalPriceMinor == 0) {
+            this.setTotalPrice(price);
+        } else {
+            this.setTotalPrice(this.getTotalPrice().plus(price));
         }
     }
-
-    // --------------- Private methods ---------------
+    
     /**
-     * Adds the price of the specified item to the total price of the bill. If
-     * the total price has not been set, the total price will be initialized
-     * with the price of the specified item.
+     * Sets the total price of the bill.
      *
-     * @param itemPrice the price that will be added.
+     * @param totalPrice the total price of the bill.
      */
-    private void addToTotalPrice(Money itemPrice) {
-        if (this.totalPrice == null) {
-            this.totalPrice = Money.of(itemPrice);
-        } else {
-            this.totalPrice = this.totalPrice.plus(itemPrice);
-        }
+    private void setTotalPrice(Money totalPrice) {
+        this.totalPriceMinor = totalPrice.getAmountMinorLong();
+        this.totalPriceCurrency = totalPrice.getCurrencyUnit();
     }
 
     // --------------- Private static methods ---------------
@@ -19,7 +19,7 @@ package de.oth.fkretschmar.advertisementproject.entities.billing;
 import de.oth.fkretschmar.advertisementproject.entities.exceptions.BuilderValidationException;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
 import de.oth.fkretschmar.advertisementproject.entities.base.AbstractAutoGenerateKeyedEntity;
-import de.oth.fkretschmar.advertisementproject.entities.base.converter.MoneyAttributeConverter;
+import de.oth.fkretschmar.advertisementproject.entities.base.converter.CurrencyUnitAttributeConverter;
 
 import javax.persistence.Column;
 import javax.persistence.Convert;
@@ -32,6 +32,7 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 
 /**
@@ -63,13 +64,32 @@ public class BillItem extends AbstractAutoGenerateKeyedEntity {
     private long contentRequests;
     
     /**
-     * Stores the total price for this bill item.
+     * Stores the total price for this bill item in minor units of its 
+     * currency.
      */
     @NotNull
-    @Column(name = "ITEM_PRICE", nullable = false)
+    @Column(name = "ITEM_PRICE_MINOR", nullable = false)
     @Getter
-    @Convert(converter = MoneyAttributeConverter.class)
-    private Money itemPrice;
+    private long itemPriceMinor;
+    
+    /**
+     * Stores the currency of the total price for this bill item.
+     */
+    @NotNull
+    @Column(name = "ITEM_PRICE_CURRENCY", nullable = false, length = 3)
+    @Convert(converter = CurrencyUnitAttributeConverter.class)
+    private CurrencyUnit itemPriceCurrency;
+    
+    // --------------- Public getters and setters ---------------
+    
+    /**
+     * Gets the total price for this bill item.
+     * 
+     * @return  the total price.
+     */
+    public Money getItemPrice() {
+        return Money.ofMinor(this.itemPriceCurrency, this.itemPriceMinor);
+    }
     
     
     // --------------- Private static methods ---------------
@@ -109,6 +129,10 @@ public class BillItem extends AbstractAutoGenerateKeyedEntity {
         Money itemPrice 
                 = content.getPricePerRequest().multipliedBy(contentRequests);
         
-        return new BillItem(content, contentRequests, itemPrice);
+        return new BillItem(
+                content, 
+                contentRequests, 
+                itemPrice.getAmountMinorLong(), 
+                itemPrice.getCurrencyUnit());
     }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.entities.billing;
+
+import de.oth.fkretschmar.advertisementproject.entities.base.AbstractAutoGenerateKeyedEntity;
+import de.oth.fkretschmar.advertisementproject.entities.base.converter.LocalDateTimeAttributeConverter;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Campaign;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.PaymentInterval;
+import de.oth.fkretschmar.advertisementproject.entities.exceptions.BuilderValidationException;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.validation.constraints.NotNull;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Represents the checkpoint of a billing run for one payment interval. A run
+ * bills the campaigns in the order of their ids and remembers the last billed
+ * campaign, so that an interrupted run can be resumed where it stopped.
+ *
+ * @author fkre
+ */
+@Entity(name = "T_BILLING_RUN")
+@NamedQueries({
+    @NamedQuery(
+            name = BillingRun.FIND_UNFINISHED, 
+            query = " SELECT    billingRun "
+                    + " FROM    T_BILLING_RUN billingRun "
+                    + " WHERE   billingRun.interval = ?1 "
+                    + " AND     billingRun.finished = false"
+                    + " ORDER BY billingRun.id")
+})
+@NoArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString(callSuper = true)
+public class BillingRun extends AbstractAutoGenerateKeyedEntity {
+    
+    // --------------- Static constants ---------------
+    
+    /**
+     * Defines the name of the query to find the unfinished runs of a payment
+     * interval.
+     */
+    public static final String FIND_UNFINISHED = "BillingRun.findUnfinished";
+    
+    // --------------- Private fields ---------------
+    
+    /**
+     * Stores the payment interval whose campaigns are billed by the run.
+     */
+    @NotNull
+    @Column(name = "PAYMENT_INTERVAL", nullable = false)
+    @Enumerated(EnumType.STRING)
+    @Getter
+    private PaymentInterval interval;
+    
+    /**
+     * Stores the point in time up to which content requests are billed by 
+     * the run.
+     */
+    @NotNull
+    @Column(name = "CUTOFF", nullable = false)
+    @Convert(converter = LocalDateTimeAttributeConverter.class)
+    @Getter
+    private LocalDateTime cutoff;
+    
+    /**
+     * Stores the id of the last {@link Campaign} that has been billed by the 
+     * run or 0 if no campaign has been billed yet.
+     */
+    @Column(name = "LAST_CAMPAIGN_ID", nullable = false)
+    @Getter
+    @Setter
+    private long lastCampaignId;
+    
+    /**
+     * Stores the number of campaigns that have been billed by the run.
+     */
+    @Column(name = "BILLED_CAMPAIGNS", nullable = false)
+    @Getter
+    @Setter
+    private int billedCampaigns;
+    
+    /**
+     * Stores whether or not all campaigns of the run have been billed.
+     */
+    @Column(name = "FINISHED", nullable = false)
+    @Getter
+    @Setter
+    private boolean finished;
+    
+    // --------------- Private constructors ---------------
+    
+    /**
+     * Creates a new instance of {@link BillingRun} using the specified 
+     * interval and cutoff.
+     * 
+     * @param   interval    the payment interval that is billed.
+     * @param   cutoff      the latest generation date of a billed request.
+     */
+    private BillingRun(PaymentInterval interval, LocalDateTime cutoff) {
+        this.interval = interval;
+        this.cutoff = cutoff;
+    }
+    
+    // --------------- Private static methods ---------------
+    
+    /**
+     * The method that builds the basis of the auto generated builder:
+     * Validates the input and creates the corresponding {@link BillingRun}.
+     * 
+     * @param   interval    the payment interval that is billed.
+     * @param   cutoff      the latest generation date of a billed request.
+     * @return  the built {@link BillingRun}.
+     * @throws  BuilderValidationException  that indicates that one or more of 
+     *                                      of the given creation parameters are
+     *                                      invalid.
+     */
+    @Builder(
+            builderMethodName = "createBillingRun", 
+            builderClassName = "BillingRunBuilder",
+            buildMethodName = "build")
+    private static BillingRun validateAndCreateBillingRun(
+            PaymentInterval interval, 
+            LocalDateTime cutoff) throws BuilderValidationException {
+        
+        if (interval == null) {
+            throw new BuilderValidationException(
+                    BillingRun.class,
+                    "The interval can not be null.");
+        }
+        
+        if (cutoff == null) {
+            throw new BuilderValidationException(
+                    BillingRun.class,
+                    "The cutoff can not be null.");
+        }
+        
+        return new BillingRun(interval, cutoff);
+    }
+}
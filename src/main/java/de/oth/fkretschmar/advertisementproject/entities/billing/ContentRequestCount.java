@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.entities.billing;
+
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Campaign;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Represents the number of unbilled requests of a single {@link Content} as
+ * summed up from its {@link ImpressionRollup} instances by the database.
+ *
+ * @author fkre
+ */
+@AllArgsConstructor
+@ToString
+public class ContentRequestCount {
+    
+    // --------------- Private fields ---------------
+    
+    /**
+     * Stores the id of the {@link Campaign} that the content belongs to.
+     */
+    @Getter
+    private final Long campaignId;
+    
+    /**
+     * Stores the id of the requested content.
+     */
+    @Getter
+    private final Long contentId;
+    
+    /**
+     * Stores the number of times the content has been requested.
+     */
+    @Getter
+    private final long requests;
+}
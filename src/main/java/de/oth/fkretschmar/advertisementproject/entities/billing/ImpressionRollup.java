@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.entities.billing;
+
+import de.oth.fkretschmar.advertisementproject.entities.base.EntityState;
+import de.oth.fkretschmar.advertisementproject.entities.base.IEntity;
+import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.MapsId;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Represents the number of times a {@link Content} has been requested by one
+ * source within one hour. Rollups are only ever incremented by the database,
+ * so they are written using batched upserts instead of being persisted.
+ *
+ * @author fkre
+ */
+@Entity(name = "T_IMPRESSION_ROLLUP")
+@Table(indexes = {
+    @Index(name = "IDX_IMPRESSION_ROLLUP_BILL", columnList = "BILL_ID")
+})
+@NamedQueries({
+    @NamedQuery(
+            name = ImpressionRollup.FIND_CAMPAIGNS_FOR_PAYMENT_INTERVAL, 
+            query = " SELECT    DISTINCT content.campaign.id "
+                    + " FROM    T_IMPRESSION_ROLLUP rollup "
+                    + " JOIN    rollup.content content "
+                    + " WHERE   content.campaign.interval = ?1 "
+                    + " AND     rollup.bill IS NULL"
+                    + " AND     rollup.id.hourBucket < ?2"
+                    + " AND     content.campaign.id > ?3"
+                    + " ORDER BY content.campaign.id"),
+    @NamedQuery(
+            name = ImpressionRollup.COUNT_FOR_CAMPAIGNS, 
+            query = " SELECT    NEW de.oth.fkretschmar.advertisementproject.entities.billing.ContentRequestCount("
+                    + "             content.campaign.id, "
+                    + "             content.id, "
+                    + "             SUM(rollup.requests)) "
+                    + " FROM    T_IMPRESSION_ROLLUP rollup "
+                    + " JOIN    rollup.content content "
+                    + " WHERE   content.campaign.id IN ?1 "
+                    + " AND     rollup.bill IS NULL"
+                    + " AND     rollup.id.hourBucket < ?2"
+                    + " GROUP BY content.campaign.id, content.id"
+                    + " ORDER BY content.campaign.id"),
+    @NamedQuery(
+            name = ImpressionRollup.ATTACH_BILL, 
+            query = " UPDATE    T_IMPRESSION_ROLLUP rollup "
+                    + " SET     rollup.bill = ?1 "
+                    + " WHERE   rollup.bill IS NULL"
+                    + " AND     rollup.id.contentId IN ?2"
+                    + " AND     rollup.id.hourBucket < ?3"),
+    @NamedQuery(
+            name = ImpressionRollup.FIND_BILLED_KEYS, 
+            query = " SELECT    rollup.id "
+                    + " FROM    T_IMPRESSION_ROLLUP rollup "
+                    + " WHERE   rollup.bill IS NOT NULL"
+                    + " AND     rollup.id.contentId IN ?1"
+                    + " AND     rollup.id.hourBucket IN ?2")
+})
+@NoArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString(exclude = {"bill", "content"})
+public class ImpressionRollup 
+        implements Serializable, IEntity<ImpressionRollupKey> {
+    
+    // --------------- Static constants ---------------
+    
+    /**
+     * Defines the name of the query to find the ids of the campaigns of a 
+     * payment interval that have unbilled requests before an hour.
+     */
+    public static final String FIND_CAMPAIGNS_FOR_PAYMENT_INTERVAL 
+            = "ImpressionRollup.findCampaignsForPaymentInterval";
+
+    /**
+     * Defines the name of the query to count the unbilled requests of every
+     * content of a set of campaigns before an hour.
+     */
+    public static final String COUNT_FOR_CAMPAIGNS 
+            = "ImpressionRollup.countForCampaigns";
+
+    /**
+     * Defines the name of the query to attach a bill to the unbilled rollups
+     * of a set of contents before an hour.
+     */
+    public static final String ATTACH_BILL = "ImpressionRollup.attachBill";
+
+    /**
+     * Defines the name of the query to find the keys of the billed rollups 
+     * of a set of contents within a set of hours.
+     */
+    public static final String FIND_BILLED_KEYS 
+            = "ImpressionRollup.findBilledKeys";
+
+    /**
+     * Defines the statement that adds requests to a rollup and creates the 
+     * rollup if it does not exist yet. A rollup that has already been billed
+     * is left unchanged.
+     */
+    public static final String UPSERT 
+            = "INSERT INTO T_IMPRESSION_ROLLUP "
+            + "(CONTENT_ID, REQUEST_SOURCE, HOUR_BUCKET, REQUESTS, ENTITY_STATE) "
+            + "VALUES (?, ?, ?, ?, 'CREATED') "
+            + "ON DUPLICATE KEY UPDATE REQUESTS = IF(BILL_ID IS NULL, "
+            + "REQUESTS + VALUES(REQUESTS), REQUESTS)";
+    
+    // --------------- Private fields ---------------
+    
+    /**
+     * Stores the key of the rollup.
+     */
+    @EmbeddedId
+    @Getter
+    private ImpressionRollupKey id;
+    
+    /**
+     * Stores the content that has been requested.
+     */
+    @MapsId("contentId")
+    @ManyToOne(optional = false)
+    @JoinColumn(name = "CONTENT_ID")
+    @Getter
+    private Content content;
+    
+    /**
+     * Stores the number of requests.
+     */
+    @Column(name = "REQUESTS", nullable = false)
+    @Getter
+    private long requests;
+    
+    /**
+     * Stores the bill in which the requests have been billed.
+     */
+    @ManyToOne
+    @JoinColumn(name = "BILL_ID")
+    @Getter
+    private Bill bill;
+    
+    /**
+     * Stores the state of the entity.
+     **/
+    @Column(name = "ENTITY_STATE")
+    @Enumerated(EnumType.STRING)
+    @Getter
+    @Setter
+    private EntityState state = EntityState.CREATED;
+}
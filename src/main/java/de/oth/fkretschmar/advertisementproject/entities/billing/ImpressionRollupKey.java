@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.entities.billing;
+
+import de.oth.fkretschmar.advertisementproject.entities.base.converter.LocalDateTimeAttributeConverter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Embeddable;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Represents the key of an {@link ImpressionRollup}, which consists of the 
+ * requested content, the source of the requests and the hour in which the
+ * requests have been counted.
+ *
+ * @author fkre
+ */
+@Embeddable
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class ImpressionRollupKey implements Serializable {
+    
+    // --------------- Private fields ---------------
+    
+    /**
+     * Stores the id of the requested content.
+     */
+    @Column(name = "CONTENT_ID", nullable = false)
+    @Getter
+    private Long contentId;
+    
+    /**
+     * Stores the source responsible for the requests.
+     */
+    @Column(name = "REQUEST_SOURCE", nullable = false)
+    @Getter
+    private String requestSource;
+    
+    /**
+     * Stores the start of the hour in which the requests have been counted.
+     */
+    @Column(name = "HOUR_BUCKET", nullable = false)
+    @Convert(converter = LocalDateTimeAttributeConverter.class)
+    @Getter
+    private LocalDateTime hourBucket;
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.entities.billing;
+
+import de.oth.fkretschmar.advertisementproject.entities.base.AbstractAutoGenerateKeyedEntity;
+import de.oth.fkretschmar.advertisementproject.entities.base.IDeletable;
+import de.oth.fkretschmar.advertisementproject.entities.base.converter.LocalDateTimeAttributeConverter;
+import de.oth.fkretschmar.advertisementproject.entities.exceptions.BuilderValidationException;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
+import javax.persistence.OneToOne;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import lombok.AccessLevel;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Represents the pending payment of a {@link Bill} that is written within the
+ * same transaction as the bill and removed once the final outcome of the 
+ * payment has been recorded on the bill.
+ *
+ * @author fkre
+ */
+@Entity(name = "T_PAYMENT_OUTBOX")
+@Table(indexes = {
+    @Index(name = "IDX_PAYMENT_OUTBOX_NEXT_ATTEMPT", columnList = "NEXT_ATTEMPT")
+})
+@NamedQueries({
+    @NamedQuery(
+            name = PaymentOutboxEntry.FIND_DUE, 
+            query = " SELECT    entry "
+                    + " FROM    T_PAYMENT_OUTBOX entry "
+                    + " WHERE   entry.nextAttempt <= ?1 "
+                    + " ORDER BY entry.nextAttempt")
+})
+@NoArgsConstructor(access = AccessLevel.PACKAGE)
+@ToString(callSuper = true, exclude = "bill")
+public class PaymentOutboxEntry extends AbstractAutoGenerateKeyedEntity
+        implements IDeletable<Long> {
+    
+    // --------------- Static constants ---------------
+    
+    /**
+     * Defines the name of the query to find the entries whose next attempt is 
+     * due.
+     */
+    public static final String FIND_DUE = "PaymentOutboxEntry.findDue";
+    
+    // --------------- Private fields ---------------
+    
+    /**
+     * Stores the bill that is being paid.
+     */
+    @NotNull
+    @OneToOne(optional = false)
+    @JoinColumn(name = "BILL_ID", nullable = false, unique = true)
+    @Getter
+    private Bill bill;
+    
+    /**
+     * Stores the key that identifies the payment at the payment provider.
+     */
+    @NotNull
+    @Column(name = "IDEMPOTENCY_KEY", nullable = false, unique = true)
+    @Getter
+    private String idempotencyKey;
+    
+    /**
+     * Stores the number of attempts that have been made.
+     */
+    @Column(name = "ATTEMPTS", nullable = false)
+    @Getter
+    @Setter
+    private int attempts;
+    
+    /**
+     * Stores the point in time at which the next attempt is due.
+     */
+    @NotNull
+    @Column(name = "NEXT_ATTEMPT", nullable = false)
+    @Convert(converter = LocalDateTimeAttributeConverter.class)
+    @Getter
+    @Setter
+    private LocalDateTime nextAttempt;
+    
+    /**
+     * Stores whether the current attempt might have reached the payment 
+     * provider, so that the payment must not be sent again before its 
+     * outcome has been recorded.
+     */
+    @Column(name = "SENT", nullable = false)
+    @Getter
+    @Setter
+    private boolean sent;
+    
+    /**
+     * Stores the message of the last failed attempt.
+     */
+    @Column(name = "LAST_ERROR")
+    @Getter
+    @Setter
+    private String lastError;
+    
+    // --------------- Private constructors ---------------
+    
+    /**
+     * Creates a new instance of {@link PaymentOutboxEntry} using the specified 
+     * bill.
+     * 
+     * @param   bill        the bill that is being paid.
+     */
+    private PaymentOutboxEntry(Bill bill) {
+        this.bill = bill;
+        this.idempotencyKey = String.format("bill-%d", bill.getId());
+        this.nextAttempt = LocalDateTime.now();
+    }
+    
+    // --------------- Private static methods ---------------
+    
+    /**
+     * The method that builds the basis of the auto generated builder:
+     * Validates the input and creates the corresponding 
+     * {@link PaymentOutboxEntry}.
+     * 
+     * @param   bill        the persisted bill that is being paid.
+     * @return  the built {@link PaymentOutboxEntry}.
+     * @throws  BuilderValidationException  that indicates that one or more of 
+     *                                      of the given creation parameters are
+     *                                      invalid.
+     */
+    @Builder(
+            builderMethodName = "createPaymentOutboxEntry", 
+            builderClassName = "PaymentOutboxEntryBuilder",
+            buildMethodName = "build")
+    private static PaymentOutboxEntry validateAndCreatePaymentOutboxEntry(
+            Bill bill) throws BuilderValidationException {
+        
+        if (bill == null || bill.getId() == null) {
+            throw new BuilderValidationException(
+                    PaymentOutboxEntry.class,
+                    "The bill has to be persisted before it can be paid.");
+        }
+        
+        return new PaymentOutboxEntry(bill);
+    }
+}
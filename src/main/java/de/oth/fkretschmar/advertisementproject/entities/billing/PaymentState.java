@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.entities.billing;
+
+/**
+ * Defines the state of the payment of a {@link Bill}.
+ * 
+ * @author fkre
+ */
+public enum PaymentState {
+    
+    // --------------- Enum fields ---------------
+    
+    /**
+     * Indicates that the payment has not been completed yet.
+     */
+    PENDING,
+    
+    /**
+     * Indicates that the bill has been paid.
+     */
+    PAID,
+    
+    /**
+     * Indicates that the payment failed because the paying account did not 
+     * have enough money and the bill is therefore overdue.
+     */
+    OVERDUE,
+    
+    /**
+     * Indicates that the payment failed permanently or could not be completed
+     * within the maximum number of attempts.
+     */
+    FAILED,
+    
+    /**
+     * Indicates that the payment has been sent but its outcome is not known,
+     * so that it has to be checked with the payment provider before it may 
+     * be sent again.
+     */
+    UNCONFIRMED;
+}
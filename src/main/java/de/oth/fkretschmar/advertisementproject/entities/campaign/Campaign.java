@@ -25,6 +25,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
@@ -32,6 +33,10 @@ import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedQueries;
+import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
 import javax.validation.constraints.NotNull;
 import lombok.AccessLevel;
@@ -46,18 +51,43 @@ import lombok.ToString;
  * @author fkre
  */
 @Entity(name = "T_CAMPAIGN")
+@Cacheable
+@NamedQueries({
+    @NamedQuery(
+            name = Campaign.FIND_FOR_COMISSIONER, 
+            query = " SELECT    campaign "
+                    + " FROM    T_CAMPAIGN campaign "
+                    + " WHERE   campaign.comissioner.id = ?1")
+})
+@NamedEntityGraph(
+        name = Campaign.GRAPH_BILLS, 
+        attributeNodes = @NamedAttributeNode("bills"))
 @NoArgsConstructor(access = AccessLevel.PACKAGE)
 //@AllArgsConstructor(access = AccessLevel.PRIVATE)
-@ToString(callSuper = true, exclude = "bills")
+@ToString(callSuper = true, exclude = {"bills", "comissioner", "contents"})
 public class Campaign extends AbstractAutoGenerateKeyedEntity {
     
+    // --------------- Static constants ---------------
+    
+    /**
+     * Defines the name of the query to find all campaigns of a user.
+     */
+    public static final String FIND_FOR_COMISSIONER 
+            = "Campaign.findForComissioner";
+    
+    /**
+     * Defines the name of the entity graph that loads the bills (without 
+     * their items) of a campaign.
+     */
+    public static final String GRAPH_BILLS = "Campaign.bills";
+    
     // --------------- Private fields ---------------
     
     /**
      * Stores all the bills that have been payed so far during the campaign.
      */
     @NotNull
-    @OneToMany(mappedBy = "campaign", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "campaign", fetch = FetchType.LAZY)
     private final Set<Bill> bills
             = new HashSet<Bill>();
     
@@ -75,7 +105,7 @@ public class Campaign extends AbstractAutoGenerateKeyedEntity {
      * Stores the user hat has comissioned the campaign.
      */
     @NotNull
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "COMISSIONER_ID")
     @Getter
     @Setter
@@ -85,7 +115,7 @@ public class Campaign extends AbstractAutoGenerateKeyedEntity {
      * Stores the contents that make up the campaign.
      */
     @NotNull
-    @OneToMany(mappedBy = "campaign", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "campaign", fetch = FetchType.LAZY)
     private final Set<Content> contents
             = new HashSet<Content>();
     
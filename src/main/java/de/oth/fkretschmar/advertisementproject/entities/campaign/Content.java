@@ -18,14 +18,15 @@ package de.oth.fkretschmar.advertisementproject.entities.campaign;
 
 import de.oth.fkretschmar.advertisementproject.entities.exceptions.ContentDataCorruptedException;
 import de.oth.fkretschmar.advertisementproject.entities.exceptions.BuilderValidationException;
-import de.oth.fkretschmar.advertisementproject.entities.base.AbstractRandomStringKeyedEntity;
+import de.oth.fkretschmar.advertisementproject.entities.base.AbstractTimeOrderedKeyedEntity;
 import de.oth.fkretschmar.advertisementproject.entities.base.IDeletable;
-import de.oth.fkretschmar.advertisementproject.entities.base.converter.MoneyAttributeConverter;
+import de.oth.fkretschmar.advertisementproject.entities.base.converter.CurrencyUnitAttributeConverter;
 
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Convert;
 import javax.persistence.Entity;
@@ -34,6 +35,8 @@ import javax.persistence.Enumerated;
 import javax.persistence.JoinColumn;
 import javax.persistence.Lob;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToOne;
@@ -48,6 +51,7 @@ import lombok.Setter;
 import lombok.ToString;
 
 import org.apache.commons.lang3.SerializationUtils;
+import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 
 /**
@@ -55,6 +59,7 @@ import org.joda.money.Money;
  * @author fkre
  */
 @Entity(name = "T_CONTENT")
+@Cacheable
 @NoArgsConstructor(access = AccessLevel.PACKAGE)
 @NamedQueries({
     @NamedQuery(
@@ -63,11 +68,22 @@ import org.joda.money.Money;
             + "from T_CONTENT CONTENT "
             + "where CONTENT.numberOfRequests > 0 "
             + "AND CONTENT.campaign.campaignState = de.oth.fkretschmar.advertisementproject.entities.campaign.CampaignState.RUNNING "
-            + "AND CONTENT.format = ?1")
+            + "AND CONTENT.format = ?1"),
+    @NamedQuery(
+            name = Content.CONSUME_REQUESTS,
+            query = " update T_CONTENT CONTENT "
+            + "set CONTENT.numberOfRequests = CONTENT.numberOfRequests - ?1 "
+            + "where CONTENT.id = ?2")
 })
+@NamedEntityGraph(
+        name = Content.GRAPH_SERVING,
+        attributeNodes = {
+            @NamedAttributeNode("campaign"),
+            @NamedAttributeNode("context")
+        })
 @ToString(callSuper = true, exclude = "campaign")
-public class Content extends AbstractRandomStringKeyedEntity
-        implements IDeletable<String> {
+public class Content extends AbstractTimeOrderedKeyedEntity
+        implements IDeletable<Long> {
 
     // --------------- Public static constants ---------------
     /**
@@ -76,6 +92,19 @@ public class Content extends AbstractRandomStringKeyedEntity
      */
     public static final String FIND_ALL_ACTIVE = "User.findAllActive";
 
+    /**
+     * Defines the name of the query to subtract a number of consumed requests
+     * from the remaining requests of a content.
+     */
+    public static final String CONSUME_REQUESTS = "Content.consumeRequests";
+
+    /**
+     * Defines the name of the entity graph that loads the campaign and the
+     * target context of a content together with the content to index it for
+     * serving.
+     */
+    public static final String GRAPH_SERVING = "Content.serving";
+
     // --------------- Private fields ---------------
     /**
      * Stores the campaign for which the content was ordered.
@@ -135,16 +164,21 @@ public class Content extends AbstractRandomStringKeyedEntity
     private long numberOfRequests;
 
     /**
-     * Stores the monetary amount tbe creator of the content is willing to pay
-     * per request of this campaign content.
-     *
+     * Stores the monetary amount in minor units of its currency tbe creator 
+     * of the content is willing to pay per request of this campaign content.
      */
     @NotNull
-    @Column(name = "PRICE_PER_REQUEST", nullable = false)
+    @Column(name = "PRICE_PER_REQUEST_MINOR", nullable = false)
     @Getter
-    @Setter
-    @Convert(converter = MoneyAttributeConverter.class)
-    private Money pricePerRequest;
+    private long pricePerRequestMinor;
+
+    /**
+     * Stores the currency of the price per request.
+     */
+    @NotNull
+    @Column(name = "PRICE_PER_REQUEST_CURRENCY", nullable = false, length = 3)
+    @Convert(converter = CurrencyUnitAttributeConverter.class)
+    private CurrencyUnit pricePerRequestCurrency;
 
     /**
      * Stores the serialized value.
@@ -201,10 +235,32 @@ public class Content extends AbstractRandomStringKeyedEntity
         this.format = format;
         this.name = name;
         this.numberOfRequests = numberOfRequests;
-        this.pricePerRequest = pricePerRequest;
+        this.setPricePerRequest(pricePerRequest);
     }
 
     // --------------- Public getters and setters ---------------
+    /**
+     * Gets the monetary amount tbe creator of the content is willing to pay
+     * per request of this campaign content.
+     *
+     * @return the price per request.
+     */
+    public Money getPricePerRequest() {
+        return Money.ofMinor(
+                this.pricePerRequestCurrency, this.pricePerRequestMinor);
+    }
+
+    /**
+     * Sets the monetary amount tbe creator of the content is willing to pay
+     * per request of this campaign content.
+     *
+     * @param pricePerRequest the price per request.
+     */
+    public void setPricePerRequest(Money pricePerRequest) {
+        this.pricePerRequestMinor = pricePerRequest.getAmountMinorLong();
+        this.pricePerRequestCurrency = pricePerRequest.getCurrencyUnit();
+    }
+
     /**
      * Gets the URL that redirects to the advertised page.
      *
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2017 fkre
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.entities.campaign;
+
+/**
+ * Defines a group that can be targeted with an advertisement and that is
+ * represented by a single bit flag.
+ *
+ * @author fkre
+ */
+public interface ITargetGroup {
+    
+    // --------------- Public getters and setters ---------------
+
+    /**
+     * Gets the integer representation of the flag of the target group.
+     * 
+     * @return  the flag value with exactly one bit set.
+     */
+    public int getFlagValue();
+}
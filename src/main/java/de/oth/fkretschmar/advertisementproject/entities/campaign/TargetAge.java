@@ -25,7 +25,7 @@ import lombok.RequiredArgsConstructor;
  * @author fkre
  */
 @RequiredArgsConstructor
-public enum TargetAge {
+public enum TargetAge implements ITargetGroup {
     
     // --------------- Enum fields ---------------
     
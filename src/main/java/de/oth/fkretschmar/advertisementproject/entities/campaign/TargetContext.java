@@ -21,21 +21,17 @@ import de.oth.fkretschmar.advertisementproject.entities.base.AbstractAutoGenerat
 import de.oth.fkretschmar.advertisementproject.entities.base.IDeletable;
 import java.util.EnumSet;
 import java.util.Set;
-import javax.persistence.CollectionTable;
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
-import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
-import javax.persistence.EnumType;
-import javax.persistence.Enumerated;
-import javax.persistence.FetchType;
-import javax.persistence.JoinColumn;
-import javax.validation.constraints.NotNull;
+import javax.persistence.Index;
+import javax.persistence.Table;
 
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
 import lombok.ToString;
 
 /**
@@ -44,6 +40,17 @@ import lombok.ToString;
  * @author fkre
  */
 @Entity(name = "T_TARGET_CONTEXT")
+@Cacheable
+@Table(indexes = {
+    @Index(name = "IDX_TARGET_CONTEXT_AGE", columnList = "AGE_MASK"),
+    @Index(name = "IDX_TARGET_CONTEXT_GENDER", columnList = "GENDER_MASK"),
+    @Index(
+            name = "IDX_TARGET_CONTEXT_MARITAL_STATUS", 
+            columnList = "MARITAL_STATUS_MASK"),
+    @Index(
+            name = "IDX_TARGET_CONTEXT_PURPOSE_OF_USE", 
+            columnList = "PURPOSE_OF_USE_MASK")
+})
 @NoArgsConstructor(access = AccessLevel.PACKAGE)
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
 @ToString(callSuper = true)
@@ -53,56 +60,33 @@ public class TargetContext extends AbstractAutoGenerateKeyedEntity
     // --------------- Private fields ---------------
     
     /**
-     * Stores the targeted age group.
+     * Stores the targeted age groups as combination of their flag values.
      */
-    @NotNull
-    @ElementCollection(fetch = FetchType.EAGER)
-    @Enumerated(EnumType.STRING)
-    @CollectionTable(
-            name = "T_TARGET_AGE", 
-            joinColumns = @JoinColumn(name = "CONTEXT_ID"))
-    @Column(name = "AGE", nullable = false)
-    @Setter
-    private Set<TargetAge> targetAges;
+    @Column(name = "AGE_MASK", nullable = false)
+    @Getter
+    private int ageMask;
     
     /**
-     * Stores the targeted gender group.
+     * Stores the targeted gender groups as combination of their flag values.
      */
-    @NotNull
-    @ElementCollection(fetch = FetchType.EAGER)
-    @Enumerated(EnumType.STRING)
-    @CollectionTable(
-            name = "T_TARGET_GENDER", 
-            joinColumns = @JoinColumn(name = "CONTEXT_ID"))
-    @Column(name = "GENDER", nullable = false)
-    @Setter
-    private Set<TargetGender> targetGenders;
+    @Column(name = "GENDER_MASK", nullable = false)
+    @Getter
+    private int genderMask;
     
     /**
-     * Stores the targeted marital status group.
+     * Stores the targeted marital status groups as combination of their flag 
+     * values.
      */
-    @NotNull
-    @ElementCollection(fetch = FetchType.EAGER)
-    @Enumerated(EnumType.STRING)
-    @CollectionTable(
-            name = "T_TARGET_MARITAL_STATUS", 
-            joinColumns = @JoinColumn(name = "CONTEXT_ID"))
-    @Column(name = "MARITAL_STATUS", nullable = false)
-    @Setter
-    private Set<TargetMaritalStatus> targetMaritalStatus;
+    @Column(name = "MARITAL_STATUS_MASK", nullable = false)
+    @Getter
+    private int maritalStatusMask;
     
     /**
-     * Stores the targeted purposes of use.
+     * Stores the targeted purposes of use as combination of their flag values.
      */
-    @NotNull
-    @ElementCollection(fetch = FetchType.EAGER)
-    @Enumerated(EnumType.STRING)
-    @CollectionTable(
-            name = "T_TARGET_PURPOSE_OF_USE", 
-            joinColumns = @JoinColumn(name = "CONTEXT_ID"))
-    @Column(name = "PURPOSE_OF_USE", nullable = false)
-    @Setter
-    private Set<TargetPurposeOfUse> targetPurposesOfUse;
+    @Column(name = "PURPOSE_OF_USE_MASK", nullable = false)
+    @Getter
+    private int purposeOfUseMask;
     
     // --------------- Public getters ---------------
 
@@ -113,7 +97,7 @@ public class TargetContext extends AbstractAutoGenerateKeyedEntity
      * @return the {@link EnumSet} of target ages.
      */
     public EnumSet<TargetAge> getAge() {
-        return EnumSet.copyOf(this.targetAges);
+        return TargetContext.toEnumSet(this.ageMask, TargetAge.class);
     }
 
     
@@ -123,7 +107,7 @@ public class TargetContext extends AbstractAutoGenerateKeyedEntity
      * @return the {@link EnumSet} of target genders.
      */
     public EnumSet<TargetGender> getGender() {
-        return EnumSet.copyOf(this.targetGenders);
+        return TargetContext.toEnumSet(this.genderMask, TargetGender.class);
     }
 
     
@@ -133,7 +117,8 @@ public class TargetContext extends AbstractAutoGenerateKeyedEntity
      * @return the {@link EnumSet} of target marital status.
      */
     public EnumSet<TargetMaritalStatus> getMaritalStatus() {
-        return EnumSet.copyOf(this.targetMaritalStatus);
+        return TargetContext.toEnumSet(
+                this.maritalStatusMask, TargetMaritalStatus.class);
     }
 
     
@@ -143,7 +128,8 @@ public class TargetContext extends AbstractAutoGenerateKeyedEntity
      * @return the {@link EnumSet} of target purposes of use.
      */
     public EnumSet<TargetPurposeOfUse> getPurposeOfUse() {
-        return EnumSet.copyOf(this.targetPurposesOfUse);
+        return TargetContext.toEnumSet(
+                this.purposeOfUseMask, TargetPurposeOfUse.class);
     }
     
     
@@ -191,10 +177,51 @@ public class TargetContext extends AbstractAutoGenerateKeyedEntity
                     "The set of target purposes of use can not be null.");
         
         return new TargetContext(
-                targetAges, 
-                targetGenders, 
-                targetMaritalStatus, 
-                targetPurposeOfUses);
+                TargetContext.toMask(targetAges), 
+                TargetContext.toMask(targetGenders), 
+                TargetContext.toMask(targetMaritalStatus), 
+                TargetContext.toMask(targetPurposeOfUses));
     }
     
+    // --------------- Private static methods ---------------
+    
+    
+    /**
+     * Combines the flag values of the specified groups into a single mask.
+     * 
+     * @param groups    the groups that will be combined.
+     * @return  the mask.
+     */
+    private static int toMask(Set<? extends ITargetGroup> groups) {
+        int mask = 0;
+        
+        for (ITargetGroup group : groups) {
+            mask |= group.getFlagValue();
+        }
+        
+        return mask;
+    }
+    
+    
+    /**
+     * Creates the set of groups whose flag values are contained in the 
+     * specified mask.
+     * 
+     * @param <E>       the type of the groups.
+     * @param mask      the combination of the flag values.
+     * @param groupType the class of the groups.
+     * @return  the {@link EnumSet} of groups.
+     */
+    private static <E extends Enum<E> & ITargetGroup> EnumSet<E> toEnumSet(
+            int mask, Class<E> groupType) {
+        EnumSet<E> groups = EnumSet.noneOf(groupType);
+        
+        for (E group : groupType.getEnumConstants()) {
+            if ((mask & group.getFlagValue()) != 0) {
+                groups.add(group);
+            }
+        }
+        
+        return groups;
+    }
 }
@@ -23,7 +23,7 @@ import lombok.Getter;
  * 
  * @author fkre
  */
-public enum TargetGender {
+public enum TargetGender implements ITargetGroup {
     
     // --------------- Enum fields ---------------
     
@@ -23,7 +23,7 @@ import lombok.Getter;
  * 
  * @author fkre
  */
-public enum TargetMaritalStatus {
+public enum TargetMaritalStatus implements ITargetGroup {
     
     /**
      * Indicates that the target is divorced.
@@ -24,7 +24,7 @@ import lombok.Getter;
  * 
  * @author fkre
  */
-public enum TargetPurposeOfUse {
+public enum TargetPurposeOfUse implements ITargetGroup {
     
     /**
      * Indicates that the target is operating in a business environment.
@@ -32,8 +32,12 @@ import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.JoinColumn;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
+import javax.persistence.NamedEntityGraphs;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.NamedSubgraph;
 import javax.persistence.OneToMany;
 import javax.persistence.OneToOne;
 import javax.validation.constraints.NotNull;
@@ -59,8 +63,23 @@ import lombok.ToString;
                     + " from T_USER USR "
                     + "where USR.id = ?1")
 })
+@NamedEntityGraphs({
+    @NamedEntityGraph(name = User.GRAPH_LOGIN),
+    @NamedEntityGraph(
+            name = User.GRAPH_ACCOUNTS,
+            attributeNodes = @NamedAttributeNode("accounts")),
+    @NamedEntityGraph(
+            name = User.GRAPH_OVERVIEW,
+            attributeNodes = {
+                @NamedAttributeNode("accounts"),
+                @NamedAttributeNode(value = "campaigns", subgraph = "campaigns")
+            },
+            subgraphs = @NamedSubgraph(
+                    name = "campaigns",
+                    attributeNodes = @NamedAttributeNode("contents")))
+})
 @NoArgsConstructor(access = AccessLevel.PACKAGE)
-@ToString(callSuper = true)
+@ToString(callSuper = true, exclude = {"accounts", "campaigns"})
 public class User extends AbstractStringKeyedEntity {
     
     // --------------- Static constants ---------------
@@ -71,12 +90,30 @@ public class User extends AbstractStringKeyedEntity {
      */
     public static final String IS_EMAIL_IN_USE_QUERY = "User.isEMailAlreadyInUse";
     
+    /**
+     * Defines the name of the entity graph that only loads the user itself 
+     * to authenticate it.
+     */
+    public static final String GRAPH_LOGIN = "User.login";
+    
+    /**
+     * Defines the name of the entity graph that only loads the accounts to
+     * edit the user or to pick the account of a new campaign.
+     */
+    public static final String GRAPH_ACCOUNTS = "User.accounts";
+    
+    /**
+     * Defines the name of the entity graph that loads the accounts as well as
+     * the campaigns and their contents to display the user.
+     */
+    public static final String GRAPH_OVERVIEW = "User.overview";
+    
     // --------------- Private fields ---------------
     
     /**
      * Stores the accounts an user has specified.
      */
-    @OneToMany(fetch = FetchType.EAGER)
+    @OneToMany(fetch = FetchType.LAZY)
     @JoinColumn(name = "USER_ID", referencedColumnName = "ID")
     private final Set<Account> accounts = new HashSet<Account>();
     
@@ -104,7 +141,7 @@ public class User extends AbstractStringKeyedEntity {
      * Stores the campaigns comissioned by the user.
      */
     @NotNull
-    @OneToMany(mappedBy = "comissioner", fetch = FetchType.EAGER)
+    @OneToMany(mappedBy = "comissioner", fetch = FetchType.LAZY)
     private final Set<Campaign> campaigns = new HashSet<Campaign>();
     
     /**
@@ -18,6 +18,7 @@ package de.oth.fkretschmar.advertisementproject.ui.models;
 
 import de.oth.fkretschmar.advertisementproject.business.services.web.ContentRequestResult;
 import de.oth.fkretschmar.advertisementproject.business.services.web.IContentProviderService;
+import de.oth.fkretschmar.advertisementproject.business.serving.RenderedContent;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.Content;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.ContentFormat;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.TargetAge;
@@ -69,7 +70,8 @@ public class AdvertisementModel implements Serializable {
      */
     @PostConstruct
     private void initializeContent() {
-        this.content = this.applicationModel.retrieveDataFromCurrentUser(user -> {
+        this.content = this.applicationModel.retrieveDataFromCurrentUser(
+                UserDetail.BASIC, user -> {
             long ageInYears = ChronoUnit.YEARS.between(
                     user.getBirthdate(), LocalDate.now());
 
@@ -97,11 +99,11 @@ public class AdvertisementModel implements Serializable {
                     .build();
             
 
-            ContentRequestResult receivedContent = this.contentService.requestContent(
+            RenderedContent receivedContent = this.contentService.requestContent(
                     "webvert",
                     ContentFormat.WIDE_SKYSCRAPER,
                     context);
-            return receivedContent;
+            return receivedContent == null ? null : receivedContent.getResult();
         });
     }
 }
@@ -103,12 +103,17 @@ public class ApplicationModel implements Serializable {
      * Allows processing and changing of the {@link User} that is currently
      * logged into the system.
      *
+     * @param detail the detail of the user that the processing requires.
      * @param processCallback The function used to process the current user.
      * @param reloadData that indicates whether or not the data of the user
      * should be loaded after the change.
      */
-    public void changeCurrentUser(Consumer<User> processCallback, boolean reloadData) {
-        this.registry.changeUser(this.currentUserId, processCallback, reloadData);
+    public void changeCurrentUser(
+            UserDetail detail, 
+            Consumer<User> processCallback, 
+            boolean reloadData) {
+        this.registry.changeUser(
+                this.currentUserId, detail, processCallback, reloadData);
     }
 
     /**
@@ -116,12 +121,14 @@ public class ApplicationModel implements Serializable {
      * logged into the system.
      *
      * @param <T> the type of the return value.
+     * @param detail the detail of the user that the processing requires.
      * @param processCallback The function used to process the current user.
      * @return the return value of the processing.
      */
-    public <T> T retrieveDataFromCurrentUser(Function<User, T> processCallback) {
+    public <T> T retrieveDataFromCurrentUser(
+            UserDetail detail, Function<User, T> processCallback) {
         return this.registry.retrieveDataFromUser(
-                this.currentUserId, processCallback);
+                this.currentUserId, detail, processCallback);
     }
 
     /**
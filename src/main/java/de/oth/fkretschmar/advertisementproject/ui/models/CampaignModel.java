@@ -16,8 +16,10 @@
  */
 package de.oth.fkretschmar.advertisementproject.ui.models;
 
+import de.oth.fkretschmar.advertisementproject.business.services.base.IBillService;
 import de.oth.fkretschmar.advertisementproject.business.services.base.ICampaignService;
 import de.oth.fkretschmar.advertisementproject.entities.billing.Bill;
+import de.oth.fkretschmar.advertisementproject.entities.billing.BillItem;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.Campaign;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.CampaignState;
 import de.oth.fkretschmar.advertisementproject.entities.campaign.ContentType;
@@ -27,7 +29,9 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -56,6 +60,18 @@ public class CampaignModel implements Serializable  {
     @Inject
     private ICampaignService campaignService;
 
+    /**
+     * Stores the service used to manage {@link Bill} entites.
+     */
+    @Inject
+    private IBillService billService;
+
+    /**
+     * Stores the items of the bills that have been displayed by this model.
+     */
+    private final Map<Long, Collection<BillItem>> billItems 
+            = new HashMap<Long, Collection<BillItem>>();
+
     /**
      * Stores the state for which campaigns are being displayed by this model.
      */
@@ -71,7 +87,7 @@ public class CampaignModel implements Serializable  {
      */
     public Collection<Campaign> getCampaigns() {
         Collection<Campaign> campaigns = this.applicationModel.retrieveDataFromCurrentUser(
-                user -> user.getCampaigns());
+                UserDetail.CAMPAIGNS, user -> user.getCampaigns());
 
         if (this.campaignState == null) {
             this.campaignState = CampaignState.RUNNING;
@@ -84,6 +100,19 @@ public class CampaignModel implements Serializable  {
     }
 
     // --------------- Public methods ---------------
+    /**
+     * Gets the items of the specified bill, which are only loaded once the 
+     * bill is displayed.
+     *
+     * @param bill the bill whose items will be displayed.
+     * @return the items of the bill.
+     */
+    public Collection<BillItem> getBillItems(Bill bill) {
+        return this.billItems.computeIfAbsent(
+                bill.getId(),
+                id -> this.billService.findBillWithItems(id).getItems());
+    }
+    
     /**
      * Cancels the specified campaign.
      *
@@ -91,7 +120,7 @@ public class CampaignModel implements Serializable  {
      * @return the next navigation point.
      */
     public String cancelCampaign(Campaign campaign) {
-        this.applicationModel.changeCurrentUser(user
+        this.applicationModel.changeCurrentUser(UserDetail.CAMPAIGNS, user
                 -> this.campaignService.cancelCampaign(campaign), false);
 
         return "overview";
@@ -137,7 +166,7 @@ public class CampaignModel implements Serializable  {
      */
     public int getCampaignCountForState(CampaignState campaignState) {
         return this.applicationModel.retrieveDataFromCurrentUser(
-                user -> user.getCampaigns()
+                UserDetail.CAMPAIGNS, user -> user.getCampaigns()
                         .stream()
                         .filter(campaign -> campaign.getCampaignState() == campaignState)
                         .collect(Collectors.toList()).size());
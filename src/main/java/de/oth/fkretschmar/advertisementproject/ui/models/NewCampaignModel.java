@@ -125,7 +125,7 @@ public class NewCampaignModel implements Serializable {
      */
     public Collection<Account> getAccounts() {
         return applicationModel.retrieveDataFromCurrentUser(
-                user -> user.getAccounts());
+                UserDetail.ACCOUNTS, user -> user.getAccounts());
     }
 
     /**
@@ -175,6 +175,7 @@ public class NewCampaignModel implements Serializable {
      */
     public void addNewAccount(Object entity) {
         this.applicationModel.changeCurrentUser(
+                UserDetail.ACCOUNTS,
                 user -> this.accountService.createAccountForUser(
                         user,
                         (Account) entity), true);
@@ -220,7 +221,7 @@ public class NewCampaignModel implements Serializable {
             return null;
         }
 
-        this.applicationModel.changeCurrentUser(user
+        this.applicationModel.changeCurrentUser(UserDetail.ACCOUNTS, user
                 -> {
             Campaign campaign = Campaign.createCampaign()
                     .interval(this.selectedInterval)
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2016 Floyd
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package de.oth.fkretschmar.advertisementproject.ui.models;
+
+/**
+ * Represents how much of a {@link de.oth.fkretschmar.advertisementproject.entities.user.User}
+ * a page needs to be loaded. Every detail includes the ones declared before it.
+ *
+ * @author Floyd
+ */
+public enum UserDetail {
+
+    /**
+     * Only the basic information of the user itself is loaded.
+     */
+    BASIC,
+    
+    /**
+     * The accounts of the user are loaded as well.
+     */
+    ACCOUNTS,
+    
+    /**
+     * The accounts as well as the campaigns with their contents and bills are 
+     * loaded.
+     */
+    CAMPAIGNS;
+}
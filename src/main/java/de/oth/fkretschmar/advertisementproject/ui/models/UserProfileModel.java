@@ -143,7 +143,8 @@ public class UserProfileModel implements Serializable {
      */
     @PostConstruct
     public void initialize() {
-        this.currentUserCopy = this.applicationModel.retrieveDataFromCurrentUser(user -> 
+        this.currentUserCopy = this.applicationModel.retrieveDataFromCurrentUser(
+                UserDetail.ACCOUNTS, user -> 
         {
             User copy = User.createUser()
                     .address(Address.createAddress()
@@ -160,7 +161,6 @@ public class UserProfileModel implements Serializable {
                     .password(user.getPassword())
                     .build();
             user.getAccounts().forEach(account -> copy.addAccount(account));
-            user.getCampaigns().forEach(campaign -> copy.addCampaign(campaign));
             return copy;
         });
         this.editing = false;
@@ -183,7 +183,7 @@ public class UserProfileModel implements Serializable {
      * @return the next navigation point.
      */
     public String saveChanges() {
-        this.applicationModel.changeCurrentUser(user -> 
+        this.applicationModel.changeCurrentUser(UserDetail.ACCOUNTS, user -> 
         {
             this.userService.changeUserBasicInformation(user, this.currentUserCopy);
         }, false);
@@ -39,6 +39,11 @@ public class VolatileUserModel implements Serializable {
      * Stores the current user.
      */
     private User currentUser;
+    
+    /**
+     * Stores the detail the current user was loaded with.
+     */
+    private UserDetail currentDetail;
 
     /**
      * Stores the repository used to manage {@link User} entities.
@@ -53,18 +58,20 @@ public class VolatileUserModel implements Serializable {
      * the user id.
      *
      * @param userId the id of the user.
+     * @param detail the detail of the user that the processing requires.
      * @param processCallback The function used to process the current user.
      * @param reloadData that indicates whether or not the data of the user
      * should be loaded after the change.
      */
-    public void changeUser(String userId, Consumer<User> processCallback, boolean reloadData) {
-        if (this.currentUser == null) {
-            this.currentUser = this.userService.find(userId);
-        }
-
-        processCallback.accept(this.currentUser);
-        // User data definately has changed so reload everything
-        this.currentUser = this.userService.find(userId);
+    public void changeUser(
+            String userId, 
+            UserDetail detail, 
+            Consumer<User> processCallback, 
+            boolean reloadData) {
+        processCallback.accept(this.retrieveUser(userId, detail));
+        // User data definately has changed so reload everything that was 
+        // loaded before
+        this.currentUser = this.load(userId, this.currentDetail);
     }
 
     /**
@@ -73,14 +80,54 @@ public class VolatileUserModel implements Serializable {
      *
      * @param <T> the type of the return value.
      * @param userId the id of the user.
+     * @param detail the detail of the user that the processing requires.
      * @param processCallback The function used to process the current user.
      * @return the return value of the processing or null if the specified user
      * does not exist.
      */
-    public <T> T retrieveDataFromUser(String userId, Function<User, T> processCallback) {
-        if (this.currentUser == null) {
-            this.currentUser = this.userService.find(userId);
+    public <T> T retrieveDataFromUser(
+            String userId, 
+            UserDetail detail, 
+            Function<User, T> processCallback) {
+        return processCallback.apply(this.retrieveUser(userId, detail));
+    }
+
+    // --------------- Private methods ---------------
+    
+    /**
+     * Loads the {@link User} that corresponds to the user id with the 
+     * specified detail.
+     * 
+     * @param userId the id of the user.
+     * @param detail the detail of the user that will be loaded.
+     * @return the loaded user or null if the specified user does not exist.
+     */
+    private User load(String userId, UserDetail detail) {
+        switch (detail) {
+            case CAMPAIGNS:
+                return this.userService.findWithCampaigns(userId);
+            case ACCOUNTS:
+                return this.userService.findWithAccounts(userId);
+            default:
+                return this.userService.find(userId);
+        }
+    }
+    
+    /**
+     * Retrieves the current {@link User} and loads it again if it has not 
+     * been loaded with at least the specified detail yet.
+     * 
+     * @param userId the id of the user.
+     * @param detail the detail of the user that is required.
+     * @return the current user or null if the specified user does not exist.
+     */
+    private User retrieveUser(String userId, UserDetail detail) {
+        if (this.currentUser == null 
+                || this.currentDetail.compareTo(detail) < 0) {
+            this.currentUser = this.load(userId, detail);
+            this.currentDetail = detail;
         }
-        return processCallback.apply(this.currentUser);
+        
+        return this.currentUser;
     }
 }